@@ -0,0 +1,68 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+
+import org.apache.commons.logging.Log;
+
+import com.google.gson.JsonObject;
+
+import dev.galasa.core.manager.Logger;
+import dev.galasa.core.manager.StoredArtifactRoot;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+
+/**
+ * The tests that drive runs through a provisioned ecosystem, with the fields
+ * they all need and the timed submit, wait and check of a single IVT run that
+ * most of them are.
+ */
+public abstract class AbstractEcosystemTest {
+
+    @Logger
+    public Log logger;
+
+    @StoredArtifactRoot
+    public Path storedArtifactRoot;
+
+    /**
+     * @return runs against the ecosystem whose timings are stored with this test's artifacts
+     */
+    protected TimedEcosystemRuns newTimedRuns() throws Exception {
+        return new TimedEcosystemRuns(getEcosystem(), storedArtifactRoot, logger);
+    }
+
+    /**
+     * Submit an IVT to the ecosystem, wait for it to end and check it passed
+     *
+     * @param bundleName the bundle the IVT is in
+     * @param testName   the IVT class
+     */
+    protected void runIvt(String bundleName, String testName) throws Exception {
+        TimedEcosystemRuns runs = newTimedRuns();
+
+        String runName = runs.submitRun(null,
+                null,
+                null,
+                bundleName,
+                testName,
+                null,
+                null,
+                null,
+                null);
+
+        JsonObject run = runs.waitForRun(runName);
+
+        String result = run.get("result").getAsString();
+
+        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+    }
+
+    abstract protected IGenericEcosystem getEcosystem() throws Exception;
+
+}
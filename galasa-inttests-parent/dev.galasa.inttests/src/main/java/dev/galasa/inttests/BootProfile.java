@@ -0,0 +1,167 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * The phases of a galasa-boot run, worked out from a trace log where every
+ * line has been prefixed with the epoch milliseconds it was written at.
+ *
+ * Each phase starts at the first line matching its marker after the start of
+ * the phase before. Only boundaries that can be told exactly are used, the
+ * start and end markers written around the command, the first line galasa-boot
+ * writes, and the framework's own start and end of test class lines, so the
+ * phases are :-
+ *
+ * jvm     - the command starting until the JVM writes its first line
+ * startup - the Felix framework starting, the OBRs being resolved, the bundles
+ *           installed and the managers initialised, until the test class starts
+ * test    - the test class running
+ * ras     - the test class ending until galasa-boot exits, writing the RAS and shutting down
+ *
+ * A phase is only reported when the lines that start and end it were both
+ * seen, so a missing line never moves time into another phase and no phase is
+ * compared with a baseline unless it was measured.
+ */
+public class BootProfile {
+
+    public static final String     START_MARKER = "inttests-boot-start";
+    public static final String     END_MARKER   = "inttests-boot-end";
+
+    private static final String[]  PHASES       = { "jvm", "startup", "test", "ras" };
+
+    // *** The marker of each phase after jvm, which starts at the start marker
+    private static final Pattern[] MARKERS      = {
+            null,
+            Pattern.compile("."), // any line, the first galasa-boot writes
+            Pattern.compile("\\Q*** Start of test class\\E"),
+            Pattern.compile("\\Q*** \\E\\w+\\Q - Test class\\E") };
+
+    private final LinkedHashMap<String, Long> phases = new LinkedHashMap<>();
+
+    private BootProfile() {
+    }
+
+    /**
+     * A parser that is fed the timestamped log a line at a time, it needs no
+     * more lines after the end marker
+     */
+    public static class Parser implements LogScanner.LineHandler {
+        private final long[] starts = new long[PHASES.length];
+        private int          next   = 0;
+        private long         end    = -1;
+
+        public Parser() {
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = -1;
+            }
+        }
+
+        @Override
+        public boolean accept(String line) {
+            int space = line.indexOf(' ');
+            if (space < 1) {
+                return true;
+            }
+            long timestamp;
+            try {
+                timestamp = Long.parseLong(line.substring(0, space));
+            } catch (NumberFormatException e) {
+                return true;
+            }
+            String text = line.substring(space + 1);
+
+            if (text.equals(START_MARKER)) {
+                starts[0] = timestamp;
+                next = 1;
+                return true;
+            }
+            if (text.equals(END_MARKER)) {
+                end = timestamp;
+                return false;
+            }
+
+            // *** Markers are looked for in order, so a later phase can never start before an earlier one
+            for (int i = next; next > 0 && i < MARKERS.length; i++) {
+                if (MARKERS[i].matcher(text).find()) {
+                    starts[i] = timestamp;
+                    next = i + 1;
+                    break;
+                }
+            }
+            return true;
+        }
+
+        public BootProfile getProfile() {
+            BootProfile profile = new BootProfile();
+            for (int i = 0; i < PHASES.length; i++) {
+                if (starts[i] < 0) {
+                    continue;
+                }
+                long phaseEnd = i + 1 < PHASES.length ? starts[i + 1] : end;
+                if (phaseEnd >= 0) {
+                    profile.phases.put(PHASES[i], phaseEnd - starts[i]);
+                }
+            }
+            return profile;
+        }
+    }
+
+    /**
+     * @return the milliseconds spent in each phase that was seen, in phase order
+     */
+    public Map<String, Long> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Compare with a baseline, a phase has regressed when it took more than the
+     * threshold percentage longer than the baseline, and more than a second
+     * longer, so short phases do not fail on noise
+     *
+     * @return a description of each phase that regressed
+     */
+    public List<String> getRegressions(BootProfile baseline, int thresholdPercent) {
+        ArrayList<String> regressions = new ArrayList<>();
+        for (Entry<String, Long> phase : phases.entrySet()) {
+            Long base = baseline.phases.get(phase.getKey());
+            if (base == null) {
+                continue;
+            }
+            long limit = Math.max(base + base * thresholdPercent / 100, base + 1000);
+            if (phase.getValue() > limit) {
+                regressions.add(phase.getKey() + " took " + phase.getValue() + "ms against a baseline of " + base + "ms");
+            }
+        }
+        return regressions;
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        for (Entry<String, Long> phase : phases.entrySet()) {
+            json.addProperty(phase.getKey(), phase.getValue());
+        }
+        return json;
+    }
+
+    public static BootProfile fromJson(JsonObject json) {
+        BootProfile profile = new BootProfile();
+        for (Entry<String, JsonElement> phase : json.entrySet()) {
+            profile.phases.put(phase.getKey(), phase.getValue().getAsLong());
+        }
+        return profile;
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.galasaecosystem.GalasaEcosystemManagerException;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.galasaecosystem.ILocalEcosystem;
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.ipnetwork.IpNetworkManagerException;
+
+/**
+ * A copy of one or more CPS namespaces of an ecosystem, taken so the changes a
+ * test class makes can be rolled back afterwards.
+ *
+ * For a local ecosystem the namespaces are read straight out of the CPS
+ * properties file on the ecosystem host in one command, and restoring writes
+ * them back in one command, whatever properties were added, changed or removed
+ * in between. Other ecosystems do not expose the CPS as a file, so only the
+ * properties set through {@link #setCpsProperty} are put back, one at a time.
+ */
+public class CpsSnapshot {
+
+    private static final String                 CPS_FILE = "cps.properties";
+
+    // *** Set by the ecosystem's shell from the galasa home, so the file does not depend on the working directory
+    private static final String                 CPS_PATH = "CPS=\"${GALASA_HOME:-$HOME/.galasa}/" + CPS_FILE + "\";";
+
+    private final IGenericEcosystem             ecosystem;
+    private final Log                           logger;
+    private final List<String>                  namespaces;
+
+    private String                              saved;
+    private final LinkedHashMap<String, String> previous = new LinkedHashMap<>();
+
+    private CpsSnapshot(IGenericEcosystem ecosystem, Log logger, List<String> namespaces) {
+        this.ecosystem = ecosystem;
+        this.logger = logger;
+        this.namespaces = namespaces;
+    }
+
+    /**
+     * Take a snapshot of the named CPS namespaces
+     *
+     * @param ecosystem  the ecosystem whose CPS is to be captured
+     * @param logger     the log of the calling test
+     * @param namespaces the namespaces to capture, eg "zos"
+     * @return the snapshot
+     * @throws TestException if the CPS properties file could not be read
+     */
+    public static CpsSnapshot take(IGenericEcosystem ecosystem, Log logger, String... namespaces) throws TestException {
+        CpsSnapshot snapshot = new CpsSnapshot(ecosystem, logger, Arrays.asList(namespaces));
+        if (ecosystem instanceof ILocalEcosystem) {
+            snapshot.saved = snapshot.readNamespaces((ILocalEcosystem) ecosystem);
+            logger.info("Taken a snapshot of the CPS namespaces " + snapshot.namespaces + " :-\n" + snapshot.saved);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Set a CPS property, remembering the value it had before for ecosystems
+     * that cannot be restored from the properties file
+     */
+    public void setCpsProperty(String property, String value) throws GalasaEcosystemManagerException {
+        if (saved == null && !previous.containsKey(property)) {
+            previous.put(property, ecosystem.getCpsProperty(property));
+        }
+        ecosystem.setCpsProperty(property, value);
+    }
+
+    /**
+     * Put the namespaces back as they were when the snapshot was taken
+     *
+     * @throws TestException                   if the CPS properties file could not be rewritten
+     * @throws GalasaEcosystemManagerException if a property could not be reset
+     */
+    public void restore() throws TestException, GalasaEcosystemManagerException {
+        if (saved != null) {
+            writeNamespaces((ILocalEcosystem) ecosystem);
+            logger.info("Restored the CPS namespaces " + namespaces);
+            return;
+        }
+
+        // *** A null value removes a property that did not exist before
+        for (Entry<String, String> property : previous.entrySet()) {
+            ecosystem.setCpsProperty(property.getKey(), property.getValue());
+        }
+        logger.info("Reset the CPS properties " + previous.keySet());
+        previous.clear();
+    }
+
+    private String readNamespaces(ILocalEcosystem localEcosystem) throws TestException {
+        String response = issueCommand(localEcosystem, CPS_PATH + "grep -E '" + namespacePattern() + "' \"$CPS\";echo RC=$?");
+
+        // *** grep ends with 1 when none of the namespaces has a property yet
+        int rcIndex = response.lastIndexOf("RC=");
+        String rc = rcIndex < 0 ? "" : response.substring(rcIndex + 3).trim();
+        if (!"0".equals(rc) && !"1".equals(rc)) {
+            throw new TestException("Unable to read " + CPS_FILE + " :-\n" + response);
+        }
+        return response.substring(0, rcIndex);
+    }
+
+    private void writeNamespaces(ILocalEcosystem localEcosystem) throws TestException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(CPS_PATH);
+        sb.append("{ grep -v -E '" + namespacePattern() + "' \"$CPS\";cat <<'CPS_SNAPSHOT'\n");
+        sb.append(saved);
+        if (!saved.isEmpty() && !saved.endsWith("\n")) {
+            sb.append("\n");
+        }
+        sb.append("CPS_SNAPSHOT\n");
+        sb.append("} > \"$CPS.restore\" && mv \"$CPS.restore\" \"$CPS\";echo RC=$?");
+
+        String response = issueCommand(localEcosystem, sb.toString());
+        if (!response.trim().endsWith("RC=0")) {
+            throw new TestException("Unable to restore " + CPS_FILE + " :-\n" + response);
+        }
+    }
+
+    private String namespacePattern() {
+        return "^(" + String.join("|", namespaces).replace(".", "\\.") + ")\\.";
+    }
+
+    private String issueCommand(ILocalEcosystem localEcosystem, String command) throws TestException {
+        try {
+            ICommandShell shell = localEcosystem.getCommandShell();
+            return shell.issueCommand(command);
+        } catch (IpNetworkManagerException e) {
+            throw new TestException("Unable to access the CPS of the local ecosystem", e);
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.ipnetwork.IpNetworkManagerException;
+
+/**
+ * Observes Docker containers through the docker cli on a Docker host, the
+ * ecosystem host or a Docker engine used by the tests.
+ */
+public class DockerContainerClient {
+
+    private final ICommandShell shell;
+    private final Log           logger;
+    private final String        docker;
+
+    public DockerContainerClient(ICommandShell shell, Log logger) {
+        this(shell, logger, "docker");
+    }
+
+    /**
+     * @param docker the command to run the docker cli, eg "sudo docker"
+     */
+    public DockerContainerClient(ICommandShell shell, Log logger, String docker) {
+        this.shell = shell;
+        this.logger = logger;
+        this.docker = docker;
+    }
+
+    /**
+     * Wait for a line containing the pattern to appear in a container log.
+     *
+     * The log is followed with docker logs -f and matched on the ecosystem host
+     * by grep, which reads it a line at a time and stops at the first match, so
+     * the command returns the instant the container reports ready and nothing
+     * but the matching line comes back over the shell, however large the log.
+     *
+     * @param container      the container name
+     * @param pattern        fixed string to look for
+     * @param timeoutSeconds how long to follow the log before giving up
+     * @return true if the pattern appeared within the timeout
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public boolean waitForLog(String container, String pattern, long timeoutSeconds) throws IpNetworkManagerException {
+        logger.info("Following the log of " + container + " for '" + pattern + "'");
+
+        // *** docker logs is killed once grep matches, so the command ends there
+        // *** rather than when docker logs next writes or times out
+        String response = shell.issueCommand(ShellFollower.follow(
+                "timeout " + timeoutSeconds + " " + docker + " logs -f " + container + " 2>&1",
+                "grep -m 1 -F '" + pattern + "' < $FOLLOWED >/dev/null", "log-rc"), (timeoutSeconds + 30) * 1000);
+
+        return response.contains("log-rc=0");
+    }
+
+    /**
+     * Start following a container log for a pattern in the background on the
+     * Docker host, as waitForLog does, but return straight away, so the shell
+     * is free for other commands while the container starts. The outcome is
+     * collected with checkLogWait.
+     *
+     * @param container      the container name
+     * @param pattern        fixed string to look for
+     * @param timeoutSeconds how long to follow the log before giving up
+     * @return the file on the Docker host the outcome is written to
+     * @throws IpNetworkManagerException if the command could not be issued
+     * @throws TestException             if the background wait could not be started
+     */
+    public String startLogWait(String container, String pattern, long timeoutSeconds) throws IpNetworkManagerException, TestException {
+        logger.info("Following the log of " + container + " for '" + pattern + "' in the background");
+
+        String follow = ShellFollower.follow(
+                "timeout " + timeoutSeconds + " " + docker + " logs -f " + container + " 2>&1",
+                "grep -m 1 -F '" + pattern + "' < $FOLLOWED >/dev/null", "log-rc");
+
+        // *** A session of its own, so the wait outlives the command that started it
+        String response = shell.issueCommand("F=$(mktemp);"
+                + "setsid nohup bash -c '" + follow.replace("'", "'\\''") + "' > $F 2>&1 < /dev/null &"
+                + "echo wait-file=$F");
+        int index = response.indexOf("wait-file=");
+        if (index < 0) {
+            throw new TestException("Unable to follow the log of " + container + " :-\n" + response);
+        }
+        return response.substring(index + "wait-file=".length()).trim();
+    }
+
+    /**
+     * @param waitFile the file returned by startLogWait
+     * @return null if the wait is still going on, otherwise whether the pattern appeared
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public Boolean checkLogWait(String waitFile) throws IpNetworkManagerException {
+        String response = shell.issueCommand("cat " + waitFile + " 2>/dev/null");
+        if (!response.contains("log-rc=")) {
+            return null;
+        }
+        shell.issueCommand("rm -f " + waitFile);
+        return response.contains("log-rc=0");
+    }
+
+    /**
+     * Wait for all the named containers to be removed.
+     *
+     * Takes one docker ps listing for the containers already gone, then follows
+     * the docker destroy events from just before that listing, all in a single
+     * command that returns once every container has been removed.
+     *
+     * @param containers     the container names
+     * @param timeoutSeconds how long to follow the events before giving up
+     * @return when each removed container was destroyed, containers already gone
+     *         at the start are given the time of the listing
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public Map<String, Instant> waitForContainersRemoved(Collection<String> containers, long timeoutSeconds)
+            throws IpNetworkManagerException {
+        HashMap<String, Instant> removed = new HashMap<>();
+        if (containers.isEmpty()) {
+            return removed;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("SINCE=$(date +%s.%N);");
+        sb.append("echo listing-time=${SINCE%.*}$(echo ${SINCE#*.} | cut -c1-3);");
+        // *** docker events is killed once awk has seen every container go, so the
+        // *** command ends there rather than when the events timeout expires
+        sb.append(ShellFollower.follow(
+                docker + " ps -a --format '{{.Names}}';echo events-start;"
+                + "timeout " + timeoutSeconds + " " + docker + " events --since $SINCE"
+                + " --filter type=container --filter event=destroy --format '{{.Actor.Attributes.name}} {{.TimeNano}}'",
+                "awk -v names='" + String.join(" ", containers) + "' '" + containerRemovedScript() + "' < $FOLLOWED",
+                "events-rc"));
+
+        logger.info("Watching for containers " + containers + " to be removed");
+        String response = shell.issueCommand(sb.toString(), (timeoutSeconds + 30) * 1000);
+
+        Instant listingTime = null;
+        for (String line : response.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.startsWith("listing-time=")) {
+                listingTime = Instant.ofEpochMilli(Long.parseLong(line.substring("listing-time=".length())));
+            } else if (line.startsWith("container-absent=")) {
+                removed.put(line.substring("container-absent=".length()), listingTime);
+            } else if (line.startsWith("container-removed=")) {
+                String[] parts = line.substring("container-removed=".length()).split("=", 2);
+                // *** TimeNano, drop the last 6 digits to get milliseconds
+                String nanos = parts[1];
+                removed.put(parts[0], Instant.ofEpochMilli(Long.parseLong(nanos.substring(0, nanos.length() - 6))));
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * @return the current time on the Docker host, so event times can be compared with it
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public Instant getHostTime() throws IpNetworkManagerException {
+        String response = shell.issueCommand("echo host-time=$(date +%s%3N)");
+        int index = response.indexOf("host-time=");
+        return Instant.ofEpochMilli(Long.parseLong(response.substring(index + "host-time=".length()).trim()));
+    }
+
+    /**
+     * @return how many containers are running on the Docker host, so a replay
+     *         of destroy events can start from the slots already held
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public int getContainerCount() throws IpNetworkManagerException {
+        String response = shell.issueCommand("echo container-count=$(" + docker + " ps -q | wc -l)");
+        int index = response.indexOf("container-count=");
+        return Integer.parseInt(response.substring(index + "container-count=".length()).trim());
+    }
+
+    /**
+     * Read the container create, start and destroy events of a period that has
+     * passed, with a single docker events command that returns straight away.
+     *
+     * @param since the start of the period, in Docker host time
+     * @param until the end of the period, in Docker host time
+     * @return the events in the order Docker reported them
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public List<ContainerEvent> getContainerEvents(Instant since, Instant until) throws IpNetworkManagerException {
+        String command = docker + " events --since " + toDockerTime(since) + " --until " + toDockerTime(until)
+                + " --filter type=container --filter event=create --filter event=start --filter event=destroy"
+                + " --format 'container-event={{.Action}} {{.Actor.Attributes.name}} {{.TimeNano}}'";
+
+        ArrayList<ContainerEvent> events = new ArrayList<>();
+        for (String line : shell.issueCommand(command).split("\\r?\\n")) {
+            line = line.trim();
+            if (!line.startsWith("container-event=")) {
+                continue;
+            }
+            String[] parts = line.substring("container-event=".length()).split(" ");
+            if (parts.length != 3) {
+                continue;
+            }
+            String nanos = parts[2];
+            events.add(new ContainerEvent(parts[0], parts[1],
+                    Instant.ofEpochMilli(Long.parseLong(nanos.substring(0, nanos.length() - 6)))));
+        }
+        return events;
+    }
+
+    private String toDockerTime(Instant time) {
+        return time.getEpochSecond() + "." + String.format("%03d", time.getNano() / 1000000);
+    }
+
+    /**
+     * A container lifecycle event reported by docker events
+     */
+    public static class ContainerEvent {
+        private final String  action;
+        private final String  container;
+        private final Instant time;
+
+        private ContainerEvent(String action, String container, Instant time) {
+            this.action = action;
+            this.container = container;
+            this.time = time;
+        }
+
+        /**
+         * @return create, start or destroy
+         */
+        public String getAction() {
+            return action;
+        }
+
+        public String getContainer() {
+            return container;
+        }
+
+        public Instant getTime() {
+            return time;
+        }
+    }
+
+    /*
+     * awk program for the docker ps listing, then the docker destroy events.
+     * Times are passed through as strings, awk would round them as numbers.
+     */
+    private String containerRemovedScript() {
+        return "BEGIN { n = split(names, c, \" \"); for (i = 1; i <= n; i++) want[c[i]] = 1; left = n }"
+                + " $0 == \"events-start\" {"
+                + "   watching = 1;"
+                + "   for (name in want) if (!(name in present)) { print \"container-absent=\" name; delete want[name]; left-- }"
+                + "   if (left == 0) exit; next"
+                + " }"
+                + " !watching { present[$1] = 1; next }"
+                + " ($1 in want) { print \"container-removed=\" $1 \"=\" $2; delete want[$1]; left--; if (left == 0) exit }";
+    }
+
+}
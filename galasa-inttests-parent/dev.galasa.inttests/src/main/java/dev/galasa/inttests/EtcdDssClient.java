@@ -0,0 +1,268 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.ipnetwork.IpNetworkManagerException;
+
+/**
+ * Access to the Docker ecosystem DSS held in etcd, driven through etcdctl on
+ * the ecosystem host.
+ *
+ * Rather than polling each run key with its own etcdctl get, the waits here
+ * issue a single shell command that follows an etcdctl watch stream and
+ * returns the moment the runs of interest reach the required state.
+ */
+public class EtcdDssClient {
+
+    private static final String RUN_PREFIX = "dss.framework.run.";
+
+    private final ICommandShell shell;
+    private final Log           logger;
+
+    public EtcdDssClient(ICommandShell shell, Log logger) {
+        this.shell = shell;
+        this.logger = logger;
+    }
+
+    /**
+     * Write the properties of one or more runs in a single etcd transaction.
+     *
+     * The transaction only succeeds if none of the runs already has a status,
+     * and all the properties become visible together, so the controller can
+     * never pick up a partially written run. The properties of each run are
+     * written in iteration order, callers should put status last for clarity.
+     *
+     * @param runs the properties of each run, keyed on run name, without the
+     *             dss.framework.run.&lt;name&gt;. prefix
+     * @return true if the transaction was committed
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public boolean submitRuns(Map<String, ? extends Map<String, String>> runs) throws IpNetworkManagerException {
+        StringBuilder compares = new StringBuilder();
+        StringBuilder puts = new StringBuilder();
+        for (Entry<String, ? extends Map<String, String>> run : runs.entrySet()) {
+            String runPrefix = RUN_PREFIX + run.getKey() + ".";
+            compares.append("mod(\"" + runPrefix + "status\") = \"0\"\\n");
+            for (Entry<String, String> property : run.getValue().entrySet()) {
+                puts.append("put " + runPrefix + property.getKey() + " \"" + property.getValue() + "\"\\n");
+            }
+        }
+
+        // *** etcdctl txn reads the compares, the success requests and the failure requests
+        // *** from stdin, each section ended by an empty line
+        String command = "printf '%b' '" + compares + "\\n" + puts + "\\n\\n' | ETCDCTL_API=3 etcdctl txn";
+
+        logger.info("Submitting runs " + runs.keySet() + " in a single transaction");
+        String response = shell.issueCommand(command);
+        if (!response.trim().startsWith("SUCCESS")) {
+            logger.error("Run submission transaction was not committed :-\n" + response);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wait for all the named runs to reach the finished status.
+     *
+     * The current state of the run keys is read first, then an etcdctl watch is
+     * started from the revision of that read, so no status change can be missed
+     * between the two. awk follows the combined stream and exits as soon as every
+     * run has finished, when the watch is killed and the command ends.
+     *
+     * @param runNames       the runs to wait for
+     * @param timeoutSeconds how long to watch before giving up
+     * @param rasIds         populated with the RAS id of each finished run, if set
+     * @return the names of the runs that finished within the timeout
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public Set<String> waitForRunsFinished(Collection<String> runNames, long timeoutSeconds,
+            Map<String, String> rasIds) throws IpNetworkManagerException {
+        HashSet<String> finished = new HashSet<>();
+        if (runNames.isEmpty()) {
+            return finished;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("export ETCDCTL_API=3;");
+        // *** The header revision of a prefix read, the watch resumes from the next one
+        sb.append("REV=$(etcdctl get " + RUN_PREFIX + " --prefix --keys-only -w json");
+        sb.append(" | grep -o '\"revision\":[0-9]*' | head -1 | cut -d: -f2);");
+        // *** The watch is killed once awk exits, so the command ends there rather than at the timeout
+        sb.append(ShellFollower.follow(
+                "etcdctl get " + RUN_PREFIX + " --prefix;"
+                + "timeout " + timeoutSeconds + " etcdctl watch " + RUN_PREFIX + " --prefix --rev=$((REV+1))",
+                "awk -v runs='" + String.join(" ", runNames) + "' '" + runWatchScript() + "' < $FOLLOWED",
+                "watch-rc"));
+
+        logger.info("Watching the DSS for runs " + runNames + " to finish");
+        String response = shell.issueCommand(sb.toString(), (timeoutSeconds + 30) * 1000);
+
+        for (String line : response.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.startsWith("run-finished=")) {
+                String runName = line.substring("run-finished=".length());
+                logger.info("Run " + runName + " finished");
+                finished.add(runName);
+            } else if (line.startsWith("run-ras-id=")) {
+                String[] parts = line.substring("run-ras-id=".length()).split("=", 2);
+                if (parts.length == 2 && !parts[1].isEmpty()) {
+                    rasIds.put(parts[0], parts[1]);
+                }
+            }
+        }
+
+        return finished;
+    }
+
+    /**
+     * Watch for the resource manager deleting the run keys.
+     *
+     * The watch starts straight away and each etcd event is timestamped on the
+     * ecosystem host as it arrives, so the time at which the last key of each run
+     * was deleted is known to the millisecond. The command returns as soon as no
+     * run keys remain.
+     *
+     * @param timeoutSeconds how long to watch before giving up
+     * @return the deletion times, the finished times and any runs left behind
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public RunCleanup waitForRunsDeleted(long timeoutSeconds) throws IpNetworkManagerException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("export ETCDCTL_API=3;");
+        sb.append("REV=$(etcdctl get " + RUN_PREFIX + " --prefix --keys-only -w json");
+        sb.append(" | grep -o '\"revision\":[0-9]*' | head -1 | cut -d: -f2);");
+        // *** The watch and its timestamping are killed once awk exits, so the command
+        // *** returns the moment the last key goes and does not pad the measured latency
+        sb.append(ShellFollower.follow(
+                "(etcdctl get " + RUN_PREFIX + " --prefix;echo watch-start;"
+                + "timeout " + timeoutSeconds + " etcdctl watch " + RUN_PREFIX + " --prefix --rev=$((REV+1)))"
+                + " | while IFS= read -r line; do echo \"$(date +%s%3N) $line\"; done",
+                "awk '" + runDeleteScript() + "' < $FOLLOWED",
+                "watch-rc"));
+
+        logger.info("Watching the DSS for the runs to be deleted");
+        String response = shell.issueCommand(sb.toString(), (timeoutSeconds + 30) * 1000);
+
+        RunCleanup cleanup = new RunCleanup();
+        for (String line : response.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.startsWith("run-deleted=")) {
+                String[] parts = line.substring("run-deleted=".length()).split("=", 2);
+                cleanup.deleted.put(parts[0], Instant.ofEpochMilli(Long.parseLong(parts[1])));
+            } else if (line.startsWith("run-finished-at=")) {
+                String[] parts = line.substring("run-finished-at=".length()).split("=", 2);
+                try {
+                    cleanup.finished.put(parts[0], Instant.parse(parts[1]));
+                } catch (DateTimeParseException e) {
+                    logger.warn("Run " + parts[0] + " has an unrecognised finished time " + parts[1]);
+                }
+            } else if (line.startsWith("run-remaining=")) {
+                cleanup.remaining.add(line.substring("run-remaining=".length()));
+            }
+        }
+
+        return cleanup;
+    }
+
+    /**
+     * What was seen while waiting for the run keys to be deleted
+     */
+    public static class RunCleanup {
+        private final HashMap<String, Instant> deleted   = new HashMap<>();
+        private final HashMap<String, Instant> finished  = new HashMap<>();
+        private final HashSet<String>          remaining = new HashSet<>();
+
+        /**
+         * @return when the last key of each run was deleted
+         */
+        public Map<String, Instant> getDeleted() {
+            return deleted;
+        }
+
+        /**
+         * @return the finished time each run recorded in the DSS, where known
+         */
+        public Map<String, Instant> getFinished() {
+            return finished;
+        }
+
+        /**
+         * @return the runs that still had keys when the watch ended
+         */
+        public Set<String> getRemaining() {
+            return remaining;
+        }
+    }
+
+    /*
+     * awk program for following "etcdctl get" and "etcdctl watch" output.
+     *
+     * Both print the key on one line and the value on the next, watch also
+     * prints an event type line first, and DELETE events have no value line.
+     */
+    private String runWatchScript() {
+        return "BEGIN { n = split(runs, r, \" \"); for (i = 1; i <= n; i++) want[r[i]] = 1; left = n }"
+                + " /^(PUT|DELETE)$/ { key = \"\"; next }"
+                + " /^dss\\.framework\\.run\\./ { key = $0; next }"
+                + " key != \"\" {"
+                + "   split(key, k, \".\"); name = k[4];"
+                + "   prop = substr(key, length(\"" + RUN_PREFIX + "\" name \".\") + 1);"
+                + "   if (name in want) {"
+                + "     if (prop == \"ras.id\") ras[name] = $0;"
+                + "     if (prop == \"status\" && $0 == \"finished\" && !(name in done)) {"
+                + "       done[name] = 1; left--; print \"run-finished=\" name"
+                + "     }"
+                + "   }"
+                + "   key = \"\";"
+                + "   if (left == 0) exit"
+                + " }"
+                + " END { for (name in ras) print \"run-ras-id=\" name \"=\" ras[name] }";
+    }
+
+    /*
+     * awk program for the timestamped "etcdctl get", then "etcdctl watch" output.
+     *
+     * Counts the keys of each run and reports the time the count for a run drops
+     * to zero, exiting once no run keys remain.
+     */
+    private String runDeleteScript() {
+        return "{ ts = $1; line = substr($0, index($0, \" \") + 1) }"
+                + " line == \"watch-start\" { watching = 1; if (total == 0) exit; next }"
+                + " watching && (line == \"PUT\" || line == \"DELETE\") { event = line; expect = \"key\"; next }"
+                + " expect == \"value\" { if (prop == \"finished\") fin[name] = line; expect = \"key\"; next }"
+                + " expect != \"\" && line ~ /^dss\\.framework\\.run\\./ || !watching && expect == \"\" {"
+                + "   split(line, k, \".\"); name = k[4];"
+                + "   prop = substr(line, length(\"" + RUN_PREFIX + "\" name \".\") + 1);"
+                + "   if (watching && event == \"DELETE\") {"
+                + "     if (line in keys) {"
+                + "       delete keys[line]; count[name]--; total--;"
+                + "       if (count[name] == 0) print \"run-deleted=\" name \"=\" ts;"
+                + "       if (total == 0) exit"
+                + "     }"
+                + "     expect = \"\"; next"
+                + "   }"
+                + "   if (!(line in keys)) { keys[line] = 1; count[name]++; total++ }"
+                + "   expect = \"value\"; next"
+                + " }"
+                + " END {"
+                + "   for (name in fin) print \"run-finished-at=\" name \"=\" fin[name];"
+                + "   for (name in count) if (count[name] > 0) print \"run-remaining=\" name"
+                + " }";
+    }
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+
+import com.google.gson.GsonBuilder;
+
+import dev.galasa.artifact.IBundleResources;
+import dev.galasa.artifact.ISkeletonProcessor.SkeletonType;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+import dev.galasa.framework.spi.utils.GalasaGson;
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.linux.ILinuxImage;
+
+/**
+ * A Linux image that runs IVTs from the command line with galasa-boot.jar.
+ *
+ * Holds the steps RunCommandlineTests takes against its image, so the same
+ * steps can be driven against several images at once.
+ */
+public class GalasaBootImage {
+
+    private static final String GALASA_VERSION          = "0.3.0-SNAPSHOT";
+    private static final String RUNTIME_PATH            = "dev/galasa/runtime/" + GALASA_VERSION + "/runtime-" + GALASA_VERSION + ".zip";
+    private static final String RUNTIME_ZIP             = ".m2/repository/" + RUNTIME_PATH;
+
+    // *** A maven repository on the image shared by every run that uses it, revalidated by each run
+    private static final String SHARED_MAVEN_REPOSITORY = ".galasa-inttests/cache/maven";
+    private static final String SHARED_MAVEN_LOCK       = ".galasa-inttests/cache/maven.lock";
+    private static final String SHARED_MAVEN_SEEDED     = ".seeded-" + GALASA_VERSION;
+    private static final String UNZIPPED_RUNTIME        = ".galasa-inttests-runtime.sha256";
+
+    // *** The checksums of the RAS files this test has already collected from the image, so they are not collected again
+    private static final String RAS_ARCHIVE             = "galasa-ras.tar.gz";
+
+    private static final String[] SEEDED_ARTIFACTS      = {
+            "dev.galasa:runtime:" + GALASA_VERSION + ":zip",
+            "dev.galasa:dev.galasa.uber.obr:" + GALASA_VERSION + ":obr",
+            "dev.galasa:dev.galasa.ivt.obr:" + GALASA_VERSION + ":obr" };
+
+    // *** The most warning lines logged from a run log
+    private static final int    MAX_WARNINGS            = 50;
+
+    private final Pattern       runNamePattern = Pattern.compile("\\QAllocated Run Name \\E(\\w+)\\Q to this run\\E");
+    private final Pattern       warningPattern = Pattern.compile("\\bWARN(ING)?\\b");
+    private final GalasaGson    gson           = new GalasaGson();
+
+    private final String        name;
+    private final Log           logger;
+    private final Path          storedArtifactRoot;
+    private final String        mavenRepository;
+
+    private final ICommandShell shell;
+    private final Path          homePath;
+
+    private boolean             sharedMavenRepository;
+
+    private final ArrayList<String> runNames = new ArrayList<>(); // the runs galasa-boot has done for this test
+
+    /**
+     * @param name               the name of the image in log messages
+     * @param image              the Linux image
+     * @param logger             the log of the calling test
+     * @param storedArtifactRoot where the logs of this image are stored
+     * @param mavenRepository    the maven repository that contains the code being tested
+     */
+    public GalasaBootImage(String name, ILinuxImage image, Log logger, Path storedArtifactRoot, String mavenRepository) throws Exception {
+        this.name = name;
+        this.logger = logger;
+        this.storedArtifactRoot = storedArtifactRoot;
+        this.mavenRepository = mavenRepository;
+
+        this.shell = image.getCommandShell();
+        this.homePath = image.getHome();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ICommandShell getShell() {
+        return shell;
+    }
+
+    public Path getHomePath() {
+        return homePath;
+    }
+
+    /**
+     * Retrieve the runtime.zip into, and run galasa-boot against, the maven
+     * repository on the image that is shared between runs, rather than the
+     * repository of the default userid
+     */
+    public void useSharedMavenRepository() {
+        this.sharedMavenRepository = true;
+    }
+
+    /**
+     * Set up the .m2/settings.xml file read for mvn commands
+     */
+    public void setupM2(IBundleResources bundleResources) throws Exception {
+        // *** Create the .m2 directory if necessary
+        Path settings = this.homePath.resolve(".m2/settings.xml");
+        if (!Files.exists(settings.getParent())) {
+            Files.createDirectory(settings.getParent());
+        }
+
+        // Get the skeleton settings.xml and provide the test repo
+        HashMap<String, Object> parameters = new HashMap<>();
+        parameters.put("galasarepo", this.mavenRepository);
+        InputStream is = bundleResources.retrieveSkeletonFile("settings.xml", parameters, SkeletonType.VELOCITY);
+
+        // *** Copy the file to the test system
+        Files.copy(is, settings);
+    }
+
+    /**
+     * Retrieve the runtime.zip from the maven repository
+     */
+    public void fetchRuntime() throws Exception {
+        if (sharedMavenRepository) {
+            seedSharedMavenRepository();
+            return;
+        }
+
+        String response = this.shell.issueCommand(
+                "mvn -B org.apache.maven.plugins:maven-dependency-plugin:2.8:get -Dartifact=dev.galasa:runtime:0.3.0-SNAPSHOT:zip > mvn.log;echo maven-rc=$?");
+        assertThat(response).describedAs("maven rc search").contains("maven-rc=0"); // check we exited 0
+        Path log = this.homePath.resolve("mvn.log"); // the log file
+        Path saLog = this.storedArtifactRoot.resolve("mvn.log"); // stored artifact file
+        Files.copy(log, saLog); // copy it
+
+        this.logger.info("Runtime successfully download to " + name);
+    }
+
+    /*
+     * Every artifact is revalidated against the remote repository each time,
+     * with -U so the snapshot metadata is checked whatever the update policy,
+     * which for an unchanged snapshot is just its metadata. The checksum of
+     * each artifact is then recorded, so the log shows whether any of them
+     * changed since the repository was last seeded. The lock keeps runs on the
+     * same image from seeding at the same time.
+     */
+    private void seedSharedMavenRepository() throws Exception {
+        Path repository = this.homePath.resolve(SHARED_MAVEN_REPOSITORY);
+        Path seeded = repository.resolve(SHARED_MAVEN_SEEDED);
+        String mvnGet = "mvn -B -U org.apache.maven.plugins:maven-dependency-plugin:2.8:get -Dmaven.repo.local=" + repository + " -Dartifact=";
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("mkdir -p " + repository + ";");
+        sb.append("flock -x " + this.homePath.resolve(SHARED_MAVEN_LOCK) + " bash -c '");
+        for (String artifact : SEEDED_ARTIFACTS) {
+            sb.append(mvnGet + artifact + " || exit 1;");
+        }
+        sb.append("(");
+        for (String artifact : SEEDED_ARTIFACTS) {
+            sb.append("echo \"" + artifact + " $(sha256sum " + repository.resolve(getArtifactPath(artifact)) + " | cut -d\" \" -f1)\";");
+        }
+        sb.append(") > " + seeded + ".new || exit 1;");
+        sb.append("if cmp -s " + seeded + ".new " + seeded + "; then echo seed-hit; fi;");
+        sb.append("mv -f " + seeded + ".new " + seeded + "' > mvn.log;echo maven-rc=$?");
+
+        String response = this.shell.issueCommand(sb.toString());
+        Files.copy(this.homePath.resolve("mvn.log"), this.storedArtifactRoot.resolve("mvn.log"));
+        assertThat(response).describedAs("maven rc search").contains("maven-rc=0"); // check we exited 0
+
+        if (new String(Files.readAllBytes(this.homePath.resolve("mvn.log"))).contains("seed-hit")) {
+            this.logger.info("Shared maven repository on " + name + " is already seeded with the current artifacts");
+        } else {
+            this.logger.info("Shared maven repository on " + name + " seeded");
+        }
+    }
+
+    /*
+     * @param artifact groupId:artifactId:version:type
+     * @return the path of the artifact within a maven repository
+     */
+    private String getArtifactPath(String artifact) {
+        String[] parts = artifact.split(":");
+        return parts[0].replace('.', '/') + "/" + parts[1] + "/" + parts[2] + "/" + parts[1] + "-" + parts[2] + "." + parts[3];
+    }
+
+    /**
+     * Take a copy of the runtime.zip another image has already retrieved
+     */
+    public void copyRuntimeFrom(GalasaBootImage source) throws Exception {
+        Path target = this.homePath.resolve(RUNTIME_ZIP);
+        Files.createDirectories(target.getParent());
+        try (InputStream is = Files.newInputStream(source.homePath.resolve(RUNTIME_ZIP))) {
+            Files.copy(is, target);
+        }
+
+        this.logger.info("Runtime copied from " + source.name + " to " + name);
+    }
+
+    /**
+     * Unzip the runtime to get the galasa-boot, unless the same runtime has
+     * already been unzipped
+     */
+    public void unzipRuntime() throws Exception {
+        String runtimeZip = sharedMavenRepository ? this.homePath.resolve(SHARED_MAVEN_REPOSITORY).resolve(RUNTIME_PATH).toString() : RUNTIME_ZIP;
+
+        String response = this.shell.issueCommand("SUM=$(sha256sum " + runtimeZip + " | cut -d' ' -f1);"
+                + "if [ -f galasa-boot.jar ] && [ \"$SUM\" = \"$(cat " + UNZIPPED_RUNTIME + " 2>/dev/null)\" ]; then echo unzip-skipped > unzip.log;"
+                + "else unzip -o " + runtimeZip + " > unzip.log && echo $SUM > " + UNZIPPED_RUNTIME + ";fi;echo zip-rc=$?");
+        assertThat(response).describedAs("zip rc search").contains("zip-rc=0"); // check we exited 0
+        Path log = this.homePath.resolve("unzip.log"); // the log file
+        Path saLog = this.storedArtifactRoot.resolve("unzip.log"); // the stored artifact
+        Files.copy(log, saLog); // copy it
+
+        this.logger.info("galasa-boot unzipped on " + name);
+    }
+
+    /**
+     * Run the CoreIVT and check it passed
+     *
+     * @return the run, with how long galasa-boot took
+     */
+    public CoreIvtRun runCoreIVT() throws Exception {
+
+        // Build the command line we need to run the core ivt
+        StringBuilder sb = new StringBuilder();
+        sb.append("echo \"$(date +%s%3N) " + BootProfile.START_MARKER + "\" > coreivt.log;"); // When the command started
+        sb.append("java "); // Run with the default java installation
+        sb.append("-jar galasa-boot.jar "); // The installed boot jar
+        if (sharedMavenRepository) {
+            sb.append("--localmaven file:" + this.homePath.resolve(SHARED_MAVEN_REPOSITORY) + " "); // The seeded repository
+        }
+        sb.append("--remotemaven ");
+        sb.append(mavenRepository); // The framework/test maven repository
+        sb.append(" ");
+        sb.append("--obr mvn:dev.galasa/dev.galasa.uber.obr/0.3.0-SNAPSHOT/obr "); // the framework obr
+        sb.append("--obr mvn:dev.galasa/dev.galasa.ivt.obr/0.3.0-SNAPSHOT/obr "); // The IVT Obr
+        sb.append("--test dev.galasa.ivt.core/dev.galasa.ivt.core.CoreManagerIVT "); // The Core IVT
+        sb.append("--trace "); // Lets get as much bask as we can in case of failure
+        sb.append("| perl -MTime::HiRes=time -ne 'printf(\"%d %s\", time * 1000, $_)' >> coreivt.log"); // Save the log, timestamping each line
+        sb.append(";RC=${PIPESTATUS[0]}");
+        sb.append(";echo \"$(date +%s%3N) " + BootProfile.END_MARKER + "\" >> coreivt.log");
+        sb.append(";echo galasa-boot-rc=$RC"); // check that the run ended with exit code 0
+
+        logger.info("About to issue the command on " + name + " :-\n" + sb.toString());
+
+        Instant start = Instant.now();
+        String response = shell.issueCommand(sb.toString()); // run the command
+        Instant end = Instant.now();
+        Duration elapsed = Duration.between(start, end);
+        logger.info("Command returned on " + name + " - took " + elapsed.toMillis() + "ms to run");
+
+        Path log = this.homePath.resolve("coreivt.log"); // the log file from the command
+        Path runLog = this.storedArtifactRoot.resolve("coreivt.log"); // the stored artifact
+        Files.copy(log, runLog); // copy to stored artifacts
+
+        assertThat(response).describedAs("run command").contains("galasa-boot-rc=0"); // check we exited 0
+
+        assertThat(response).describedAs("check there were no warnings issued").doesNotContain("WARNING"); // make sure java
+                                                                                                  // didnt issue
+                                                                                                  // warnings;
+
+        // *** Scan the run log once for the run name and the startup profile, picking up any warnings on the way
+        LogScanner.FirstMatch runNameMatch = new LogScanner.FirstMatch(runNamePattern);
+        BootProfile.Parser profileParser = new BootProfile.Parser();
+        LogScanner.MatchCollector warnings = new LogScanner.MatchCollector(warningPattern, MAX_WARNINGS);
+        try (InputStream is = Files.newInputStream(log)) {
+            new LogScanner().add(runNameMatch).add(profileParser).addOptional(warnings).scan(is);
+        }
+        BootProfile profile = profileParser.getProfile();
+        logProfile(profile);
+        if (!warnings.getMatches().isEmpty()) {
+            logger.info("Warnings in the run log on " + name + " :-\n" + String.join("\n", warnings.getMatches()));
+        }
+
+        String runName = runNameMatch.getGroup(1);
+        assertThat(runName).describedAs("Finding run name in log").isNotNull(); // Check that the run name is in the log
+        runNames.add(runName);
+
+        logger.info("The CoreIVT test on " + name + " was run name " + runName);
+
+        // *** Retrieve the Test Structure
+        Path structureFile = this.homePath.resolve(".galasa/ras/" + runName + "/structure.json");
+        assertThat(Files.exists(structureFile)).describedAs("Test structure exists on test server for this run").isTrue();
+        String sStructure = new String(Files.readAllBytes(structureFile));
+
+        TestStructure testStructure = gson.fromJson(sStructure, TestStructure.class);
+
+        // *** Check the test passed
+        assertThat(testStructure.getResult()).describedAs("The test structure indicates the test passes").isEqualTo("Passed");
+
+        return new CoreIvtRun(runName, testStructure, elapsed, profile);
+    }
+
+    /**
+     * @return the first line of java -version, which identifies the JDK
+     */
+    public String getJavaVersion() throws Exception {
+        String response = this.shell.issueCommand("java -version 2>&1 | head -1");
+        return response.trim();
+    }
+
+    /*
+     * Only logged, the test stores the profile along with its comparison
+     */
+    private void logProfile(BootProfile profile) {
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(profile.toJson());
+        logger.info("galasa-boot startup profile on " + name + " :-\n" + json);
+    }
+
+    /**
+     * Retrieve the RAS of the runs this test did.
+     *
+     * Only the run directories under .galasa/ras are collected, not the
+     * felix-cache or the maven repositories. They are compressed with pigz at
+     * level 1 when the image has it, otherwise gzip at level 1. If no run name
+     * was found the whole RAS is collected, so a failed run can still be
+     * diagnosed.
+     */
+    public void getLogs() throws Exception {
+        String runs = runNames.isEmpty() ? "." : String.join(" ", runNames);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("rm -f " + RAS_ARCHIVE + ";");
+        sb.append("if command -v pigz > /dev/null; then GZ=\"pigz -1\"; else GZ=\"gzip -1\"; fi;");
+        sb.append("(set -o pipefail; tar -cf - -C .galasa/ras " + runs + " | $GZ > " + RAS_ARCHIVE + ");");
+        sb.append("echo ras-rc=$?");
+
+        this.logger.info("Collecting the RAS of " + runs + " on " + name);
+        String response = this.shell.issueCommand(sb.toString());
+        assertThat(response).describedAs("RAS collection rc check is 0").contains("ras-rc=0"); // check we exited 0
+
+        try (InputStream is = Files.newInputStream(this.homePath.resolve(RAS_ARCHIVE))) {
+            Files.copy(is, this.storedArtifactRoot.resolve(RAS_ARCHIVE)); // stream it to the stored artifacts
+        }
+    }
+
+    /**
+     * A CoreIVT run by galasa-boot
+     */
+    public static class CoreIvtRun {
+        private final String        runName;
+        private final TestStructure testStructure;
+        private final Duration      elapsed;
+        private final BootProfile   profile;
+
+        private CoreIvtRun(String runName, TestStructure testStructure, Duration elapsed, BootProfile profile) {
+            this.runName = runName;
+            this.testStructure = testStructure;
+            this.elapsed = elapsed;
+            this.profile = profile;
+        }
+
+        public String getRunName() {
+            return runName;
+        }
+
+        public TestStructure getTestStructure() {
+            return testStructure;
+        }
+
+        /**
+         * @return the phases of the galasa-boot command
+         */
+        public BootProfile getProfile() {
+            return profile;
+        }
+
+        /**
+         * @return how long the galasa-boot command took
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * @return how long the test ran for, from the test structure, or null if it has no times
+         */
+        public Duration getRunTime() {
+            if (testStructure.getStartTime() == null || testStructure.getEndTime() == null) {
+                return null;
+            }
+            return Duration.between(testStructure.getStartTime(), testStructure.getEndTime());
+        }
+
+        /**
+         * @return the galasa-boot time that was not the test running, JVM and framework start
+         *         and shutdown, or null if the test structure has no times
+         */
+        public Duration getBootTime() {
+            Duration runTime = getRunTime();
+            return runTime == null ? null : elapsed.minus(runTime);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a log a line at a time, passing each line to a set of handlers, so
+ * several things can be pulled out of a log in one pass without holding it in
+ * memory.
+ *
+ * Lines longer than the limit are cut short before they are passed on.
+ * Reading stops as soon as every required handler has all it needs, optional
+ * handlers only see the lines read up to then.
+ */
+public class LogScanner {
+
+    private static final int DEFAULT_MAX_LINE_LENGTH = 16 * 1024;
+
+    public interface LineHandler {
+        /**
+         * @param line the next line of the log
+         * @return false once the handler needs no more lines
+         */
+        boolean accept(String line);
+    }
+
+    private final int                    maxLineLength;
+    private final ArrayList<LineHandler> required = new ArrayList<>();
+    private final ArrayList<LineHandler> optional = new ArrayList<>();
+
+    public LogScanner() {
+        this(DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public LogScanner(int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Add a handler the scan goes on for until it needs no more lines
+     */
+    public LogScanner add(LineHandler handler) {
+        required.add(handler);
+        return this;
+    }
+
+    /**
+     * Add a handler that is passed lines only while the scan goes on for the
+     * required handlers, or until it needs no more lines if there are none
+     */
+    public LogScanner addOptional(LineHandler handler) {
+        optional.add(handler);
+        return this;
+    }
+
+    /**
+     * Scan the log
+     *
+     * @param is the log, which is not closed
+     * @return the number of lines read
+     * @throws IOException if the log could not be read
+     */
+    public long scan(InputStream is) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        ArrayList<LineHandler> activeRequired = new ArrayList<>(required);
+        ArrayList<LineHandler> activeOptional = new ArrayList<>(optional);
+        List<LineHandler> deciding = required.isEmpty() ? activeOptional : activeRequired;
+
+        long lines = 0;
+        String line;
+        while (!deciding.isEmpty() && (line = reader.readLine()) != null) {
+            lines++;
+            if (line.length() > maxLineLength) {
+                line = line.substring(0, maxLineLength);
+            }
+            passOn(activeRequired, line);
+            passOn(activeOptional, line);
+        }
+        return lines;
+    }
+
+    private void passOn(List<LineHandler> active, String line) {
+        active.removeIf(handler -> !handler.accept(line));
+    }
+
+    /**
+     * Finds the first line matching a pattern
+     */
+    public static class FirstMatch implements LineHandler {
+        private final Pattern pattern;
+        private Matcher       match;
+
+        public FirstMatch(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean accept(String line) {
+            Matcher matcher = pattern.matcher(line);
+            if (matcher.find()) {
+                match = matcher;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return the group of the match, or null if no line matched
+         */
+        public String getGroup(int group) {
+            return match == null ? null : match.group(group);
+        }
+    }
+
+    /**
+     * Collects the lines matching a pattern, up to a limit
+     */
+    public static class MatchCollector implements LineHandler {
+        private final Pattern           pattern;
+        private final int               limit;
+        private final ArrayList<String> matches = new ArrayList<>();
+
+        public MatchCollector(Pattern pattern, int limit) {
+            this.pattern = pattern;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean accept(String line) {
+            if (pattern.matcher(line).find()) {
+                matches.add(line);
+            }
+            return matches.size() < limit;
+        }
+
+        public List<String> getMatches() {
+            return matches;
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import dev.galasa.AfterClass;
+import dev.galasa.BeforeClass;
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
+import dev.galasa.Test;
+import dev.galasa.artifact.ArtifactManager;
+import dev.galasa.artifact.IArtifactManager;
+import dev.galasa.artifact.IBundleResources;
+import dev.galasa.core.manager.Logger;
+import dev.galasa.core.manager.StoredArtifactRoot;
+import dev.galasa.core.manager.TestProperty;
+import dev.galasa.inttests.GalasaBootImage.CoreIvtRun;
+import dev.galasa.linux.ILinuxImage;
+import dev.galasa.linux.LinuxImage;
+
+/**
+ * Runs the CoreIVT from the command line on the four JDKs of the
+ * RunCommandlineTests variations at the same time, for a side by side
+ * comparison of how galasa-boot performs on each.
+ *
+ * The runtime.zip is retrieved from maven once and copied to the other images,
+ * and every other step runs on all the images at once. The boot and run time
+ * of each JDK is logged as a table and stored as jdk-comparison.json, and the
+ * logs of each JDK are stored under a directory of its name.
+ */
+@Test
+public class RunCommandlineJdkComparison {
+
+    @Logger
+    public Log              logger;
+
+    @LinuxImage(imageTag = "openjdk8", capabilities = { "java8", "maven" })
+    public ILinuxImage      openjdk8;
+
+    @LinuxImage(imageTag = "openjdk11", capabilities = { "java11", "maven" })
+    public ILinuxImage      openjdk11;
+
+    @LinuxImage(imageTag = "ibmjdk8", capabilities = { "ibmjava8", "maven" })
+    public ILinuxImage      ibmjdk8;
+
+    @LinuxImage(imageTag = "ibmjdk11", capabilities = { "ibmjava11", "maven" })
+    public ILinuxImage      ibmjdk11;
+
+    @StoredArtifactRoot
+    public Path             storedArtifactRoot;
+
+    @TestProperty(prefix = "integrated.tests", suffix = "maven.repository")
+    public String           mavenRepository; // The maven repository that contains the code we will be testing
+
+    @ArtifactManager
+    public IArtifactManager artifactManager;
+
+    private final ArrayList<GalasaBootImage> images = new ArrayList<>();
+
+    private interface ImageStep<T> {
+        T run(GalasaBootImage image) throws Exception;
+    }
+
+    @BeforeClass
+    public void setupImages() throws Exception {
+        images.add(new GalasaBootImage("openjdk8", openjdk8, logger, storedArtifactRoot.resolve("openjdk8"), mavenRepository));
+        images.add(new GalasaBootImage("openjdk11", openjdk11, logger, storedArtifactRoot.resolve("openjdk11"), mavenRepository));
+        images.add(new GalasaBootImage("ibmjdk8", ibmjdk8, logger, storedArtifactRoot.resolve("ibmjdk8"), mavenRepository));
+        images.add(new GalasaBootImage("ibmjdk11", ibmjdk11, logger, storedArtifactRoot.resolve("ibmjdk11"), mavenRepository));
+    }
+
+    /**
+     * Set up maven on every image, then retrieve the runtime.zip once and share it
+     */
+    @BeforeClass
+    public void setupGalasaBoot() throws Exception {
+        IBundleResources bundleResources = artifactManager.getBundleResources(getClass());
+        onAllImages("setupM2", image -> {
+            image.setupM2(bundleResources);
+            return null;
+        });
+
+        GalasaBootImage source = images.get(0);
+        source.fetchRuntime();
+
+        onAllImages("unzipRuntime", image -> {
+            if (image != source) {
+                image.copyRuntimeFrom(source);
+            }
+            image.unzipRuntime();
+            return null;
+        });
+    }
+
+    @Test
+    public void runCoreIVTs() throws Exception {
+        LinkedHashMap<GalasaBootImage, CoreIvtRun> runs = onAllImages("runCoreIVT", GalasaBootImage::runCoreIVT);
+
+        JsonObject comparison = new JsonObject();
+        StringBuilder report = new StringBuilder("CoreIVT by JDK :-\n");
+        report.append(String.format("    %-10s %10s %10s %10s%n", "jdk", "total ms", "boot ms", "run ms"));
+        for (Entry<GalasaBootImage, CoreIvtRun> entry : runs.entrySet()) {
+            CoreIvtRun run = entry.getValue();
+
+            JsonObject jdk = new JsonObject();
+            jdk.addProperty("runName", run.getRunName());
+            jdk.addProperty("totalMillis", run.getElapsed().toMillis());
+            addMillis(jdk, "bootMillis", run.getBootTime());
+            addMillis(jdk, "runMillis", run.getRunTime());
+            jdk.add("phasesMillis", run.getProfile().toJson());
+            comparison.add(entry.getKey().getName(), jdk);
+
+            report.append(String.format("    %-10s %10d %10s %10s%n", entry.getKey().getName(), run.getElapsed().toMillis(),
+                    toMillis(run.getBootTime()), toMillis(run.getRunTime())));
+        }
+        logger.info(report.toString());
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(comparison);
+        Files.write(storedArtifactRoot.resolve("jdk-comparison.json"), json.getBytes(StandardCharsets.UTF_8),
+                new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
+    }
+
+    @AfterClass
+    public void getLogs() throws Exception {
+        onAllImages("getLogs", image -> {
+            image.getLogs();
+            return null;
+        });
+    }
+
+    /*
+     * Run a step on every image at once, waiting for all of them before
+     * reporting the first failure, so a slow image is not abandoned mid step
+     */
+    private <T> LinkedHashMap<GalasaBootImage, T> onAllImages(String stepName, ImageStep<T> step) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(images.size());
+        try {
+            LinkedHashMap<GalasaBootImage, Future<T>> futures = new LinkedHashMap<>();
+            for (GalasaBootImage image : images) {
+                futures.put(image, executor.submit(() -> step.run(image)));
+            }
+
+            LinkedHashMap<GalasaBootImage, T> results = new LinkedHashMap<>();
+            List<String> failed = new ArrayList<>();
+            Throwable firstFailure = null;
+            for (Entry<GalasaBootImage, Future<T>> future : futures.entrySet()) {
+                try {
+                    results.put(future.getKey(), future.getValue().get());
+                } catch (ExecutionException e) {
+                    logger.error(stepName + " failed on " + future.getKey().getName(), e.getCause());
+                    failed.add(future.getKey().getName());
+                    if (firstFailure == null) {
+                        firstFailure = e.getCause();
+                    }
+                }
+            }
+
+            if (firstFailure instanceof Error) {
+                throw (Error) firstFailure;
+            } else if (firstFailure != null) {
+                throw new TestException(stepName + " failed on " + failed, firstFailure);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void addMillis(JsonObject jdk, String name, Duration duration) {
+        if (duration != null) {
+            jdk.addProperty(name, duration.toMillis());
+        }
+    }
+
+    private String toMillis(Duration duration) {
+        return duration == null ? "-" : Long.toString(duration.toMillis());
+    }
+
+}
@@ -7,33 +7,34 @@ package dev.galasa.inttests;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
 import dev.galasa.AfterClass;
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
 import dev.galasa.BeforeClass;
 import dev.galasa.Test;
 import dev.galasa.TestVariation;
 import dev.galasa.TestVariationProperty;
 import dev.galasa.artifact.ArtifactManager;
 import dev.galasa.artifact.IArtifactManager;
-import dev.galasa.artifact.IBundleResources;
-import dev.galasa.artifact.ISkeletonProcessor.SkeletonType;
-import dev.galasa.ipnetwork.ICommandShell;
 import dev.galasa.linux.ILinuxImage;
 import dev.galasa.linux.LinuxImage;
 import dev.galasa.core.manager.Logger;
 import dev.galasa.core.manager.StoredArtifactRoot;
 import dev.galasa.core.manager.TestProperty;
-import dev.galasa.framework.spi.teststructure.TestStructure;
-import dev.galasa.framework.spi.utils.GalasaGson;
+import dev.galasa.inttests.GalasaBootImage.CoreIvtRun;
 
 /**
  * This integration test will prove that the basic framework is working by
@@ -57,8 +58,7 @@ import dev.galasa.framework.spi.utils.GalasaGson;
         @TestVariationProperty(property = "linux.tag.primary.capabilities", value = "ibmjava11,maven") })
 public class RunCommandlineTests {
 
-    private final Pattern runNamePattern = Pattern.compile("\\QAllocated Run Name \\E(\\w+)\\Q to this run\\E");
-    private final GalasaGson    gson           = new GalasaGson();
+    private static final int DEFAULT_PROFILE_THRESHOLD_PERCENT = 50;
 
     @Logger
     public Log            logger;
@@ -74,11 +74,24 @@ public class RunCommandlineTests {
     @TestProperty(prefix = "integrated.tests", suffix = "maven.repository")
     public String           mavenRepository; // The maven repository that contains the code we will be testing
 
+    // "shared" seeds a maven repository on the image that each run revalidates, and runs
+    // galasa-boot with it as --localmaven, so later runs on the image skip unchanged downloads
+    @TestProperty(prefix = "galasa.boot.maven", suffix = "mode", required = false)
+    public String           mavenMode;
+
+    // Where the galasa-boot startup profile baselines are kept, a directory that outlives the test JVM,
+    // the profile is not compared without it
+    @TestProperty(prefix = "galasa.boot.profile.baseline", suffix = "directory", required = false)
+    public String           profileBaselineDirectory;
+
+    // How many percent slower than the baseline a startup phase can be before the test fails
+    @TestProperty(prefix = "galasa.boot.profile.threshold", suffix = "percent", required = false)
+    public String           profileThresholdPercent;
+
     @ArtifactManager
     public IArtifactManager artifactManager; // TODO we should get the bundleresources object direct
 
-    private ICommandShell   shell;           // get a command shell
-    private Path            homePath;        // The home directory of the default userid
+    private GalasaBootImage image;           // the image galasa-boot is run on
 
     /**
      * Set up the shell and the filesystem we will use later
@@ -87,12 +100,12 @@ public class RunCommandlineTests {
      */
     @BeforeClass
     public void setupShells() throws Exception {
-        // *** Obtain the shell that we are going to use
-        shell = linuxPrimary.getCommandShell();
+        // *** Obtain the shell and home directory that we are going to use
+        image = new GalasaBootImage("primary", linuxPrimary, logger, storedArtifactRoot, mavenRepository);
+        if ("shared".equalsIgnoreCase(mavenMode)) {
+            image.useSharedMavenRepository();
+        }
         logger.info("Obtained command shell to linux server");
-
-        // *** Obtain the home directory
-        this.homePath = linuxPrimary.getHome();
     }
 
     /**
@@ -103,22 +116,8 @@ public class RunCommandlineTests {
      */
     @BeforeClass
     public void setupM2() throws Exception {
-        // *** Create the .m2 directory if necessary
-        Path settings = this.homePath.resolve(".m2/settings.xml");
-        if (!Files.exists(settings.getParent())) {
-            Files.createDirectory(settings.getParent());
-        }
-
         // TODO should have this as an annotated file
-        IBundleResources bundleResources = artifactManager.getBundleResources(getClass());
-
-        // Get the skeleton settings.xml and provide the test repo
-        HashMap<String, Object> parameters = new HashMap<>();
-        parameters.put("galasarepo", this.mavenRepository);
-        InputStream is = bundleResources.retrieveSkeletonFile("settings.xml", parameters, SkeletonType.VELOCITY);
-
-        // *** Copy the file to the test system
-        Files.copy(is, settings);
+        image.setupM2(artifactManager.getBundleResources(getClass()));
     }
 
     /**
@@ -128,25 +127,8 @@ public class RunCommandlineTests {
      */
     @BeforeClass
     public void setupGalasaBoot() throws Exception {
-        // *** Retrieve the runtime zip from the maven repository
-        String response = this.shell.issueCommand(
-                "mvn -B org.apache.maven.plugins:maven-dependency-plugin:2.8:get -Dartifact=dev.galasa:runtime:0.3.0-SNAPSHOT:zip > mvn.log;echo maven-rc=$?");
-        assertThat(response).describedAs("maven rc search").contains("maven-rc=0"); // check we exited 0
-        Path log = this.homePath.resolve("mvn.log"); // the log file
-        Path saLog = this.storedArtifactRoot.resolve("mvn.log"); // stored artifact file
-        Files.copy(log, saLog); // copy it
-
-        this.logger.info("Runtime successfully download");
-
-        // *** Unzip the runtime to get the galasa-boot
-        response = this.shell.issueCommand(
-                "unzip -o .m2/repository/dev/galasa/runtime/0.3.0-SNAPSHOT/runtime-0.3.0-SNAPSHOT.zip > unzip.log;echo zip-rc=$?");
-        assertThat(response).describedAs("zip rc search").contains("zip-rc=0"); // check we exited 0
-        log = this.homePath.resolve("unzip.log"); // the log file
-        saLog = this.storedArtifactRoot.resolve("unzip.log"); // the stored artifact
-        Files.copy(log, saLog); // copy it
-
-        this.logger.info("galasa-boot unzipped");
+        image.fetchRuntime();
+        image.unzipRuntime();
     }
 
     /**
@@ -156,61 +138,58 @@ public class RunCommandlineTests {
      */
     @Test
     public void runCoreIVT() throws Exception {
+        CoreIvtRun run = image.runCoreIVT();
+
+        checkProfile(run.getProfile());
+    }
+
+    /**
+     * Compare the startup profile with the baseline for this JDK, the first run
+     * on a JDK becomes its baseline. The comparison is skipped, and says so in
+     * the stored boot-profile.json, when there is no baseline to compare with
+     */
+    private void checkProfile(BootProfile profile) throws Exception {
+        JsonObject stored = new JsonObject();
+        stored.add("phases", profile.toJson());
+
+        if (profileBaselineDirectory == null || profileBaselineDirectory.trim().isEmpty()) {
+            skipProfileCheck(stored, "no galasa.boot.profile.baseline.directory is configured");
+            return;
+        }
+        Path baselines = Paths.get(profileBaselineDirectory.trim());
+        int threshold = DEFAULT_PROFILE_THRESHOLD_PERCENT;
+        if (profileThresholdPercent != null && !profileThresholdPercent.trim().isEmpty()) {
+            threshold = Integer.parseInt(profileThresholdPercent.trim());
+        }
+
+        Files.createDirectories(baselines);
+        Path baselineFile = baselines.resolve(image.getJavaVersion().replaceAll("[^A-Za-z0-9._-]+", "_") + ".json");
+        if (!Files.exists(baselineFile)) {
+            Files.write(baselineFile, profile.toJson().toString().getBytes(StandardCharsets.UTF_8));
+            skipProfileCheck(stored, "there was no baseline for this JDK, this run has been saved as " + baselineFile);
+            return;
+        }
 
-        // Build the command line we need to run the core ivt
-        StringBuilder sb = new StringBuilder();
-        sb.append("java "); // Run with the default java installation
-        sb.append("-jar galasa-boot.jar "); // The installed boot jar
-        sb.append("--remotemaven ");
-        sb.append(mavenRepository); // The framework/test maven repository
-        sb.append(" ");
-        sb.append("--obr mvn:dev.galasa/dev.galasa.uber.obr/0.3.0-SNAPSHOT/obr "); // the framework obr
-        sb.append("--obr mvn:dev.galasa/dev.galasa.ivt.obr/0.3.0-SNAPSHOT/obr "); // The IVT Obr
-        sb.append("--test dev.galasa.ivt.core/dev.galasa.ivt.core.CoreManagerIVT "); // The Core IVT
-        sb.append("--trace "); // Lets get as much bask as we can in case of failure
-        sb.append("> coreivt.log "); // Save the log
-        sb.append(";echo galasa-boot-rc=$?"); // check that the run ended with exit code 0
-
-        logger.info("About to issue the command :-\n" + sb.toString());
-
-        Instant start = Instant.now();
-        String response = shell.issueCommand(sb.toString()); // run the command
-        Instant end = Instant.now();
-        logger.info("Command returned - took " + (end.getEpochSecond() - start.getEpochSecond()) + " seconds to run");
-
-        Path log = this.homePath.resolve("coreivt.log"); // the log file from the command
-        Path runLog = this.storedArtifactRoot.resolve("coreivt.log"); // the stored artifact
-        Files.copy(log, runLog); // copy to stored artifacts
-
-        assertThat(response).describedAs("run command").contains("galasa-boot-rc=0"); // check we exited 0
-
-        assertThat(response).describedAs("check there were no warnings issued").doesNotContain("WARNING"); // make sure java
-                                                                                                  // didnt issue
-                                                                                                  // warnings;
-
-        // *** Pull the run log so we can extract the run name
-        String sLog = new String(Files.readAllBytes(log));
-        Matcher matcher = runNamePattern.matcher(sLog);
-        assertThat(matcher.find()).describedAs("Finding run name in log").isTrue(); // Check that the run name is in the log
-        String runName = matcher.group(1);
-
-        logger.info("The CoreIVT test was run name " + runName);
-
-        // *** Retrieve the Test Structure
-        Path structureFile = this.homePath.resolve(".galasa/ras/" + runName + "/structure.json");
-        assertThat(Files.exists(structureFile)).describedAs("Test structure exists on test server for this run").isTrue(); // Check
-                                                                                                                  // that
-                                                                                                                  // the
-                                                                                                                  // test
-                                                                                                                  // structure
-                                                                                                                  // exists
-        String sStructure = new String(Files.readAllBytes(structureFile));
-
-        TestStructure testStructure = gson.fromJson(sStructure, TestStructure.class);
-
-        // *** Check the test passed
-        assertThat(testStructure.getResult()).describedAs("The test structure indicates the test passes").isEqualTo("Passed");
+        BootProfile baseline = BootProfile.fromJson(
+                JsonParser.parseString(new String(Files.readAllBytes(baselineFile), StandardCharsets.UTF_8)).getAsJsonObject());
+        List<String> regressions = profile.getRegressions(baseline, threshold);
+        stored.addProperty("comparison", regressions.isEmpty() ? "passed" : "failed");
+        stored.add("baseline", baseline.toJson());
+        storeProfile(stored);
 
+        assertThat(regressions)
+                .describedAs("The galasa-boot startup phases that regressed past " + threshold + "% of " + baselineFile).isEmpty();
+    }
+
+    private void skipProfileCheck(JsonObject stored, String reason) throws IOException {
+        logger.warn("The galasa-boot startup profile comparison was skipped, " + reason);
+        stored.addProperty("comparison", "skipped, " + reason);
+        storeProfile(stored);
+    }
+
+    private void storeProfile(JsonObject stored) throws IOException {
+        Files.write(storedArtifactRoot.resolve("boot-profile.json"), stored.toString().getBytes(StandardCharsets.UTF_8),
+                new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
     }
 
     /**
@@ -220,13 +199,7 @@ public class RunCommandlineTests {
      */
     @AfterClass
     public void getLogs() throws Exception {
-        String response = this.shell.issueCommand("zip -r -9 galasa.zip .galasa;echo zip-rc=$?");
-        assertThat(response).describedAs("zip rc check is 0").contains("zip-rc=0"); // check we exited 0
-
-        Path zip = this.homePath.resolve("galasa.zip"); // the zip file
-        Path sazip = this.storedArtifactRoot.resolve("galasa.zip"); // stored artifact file
-        Files.copy(zip, sazip); // copy it
-
+        image.getLogs();
     }
 
 }
@@ -9,10 +9,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
@@ -48,6 +54,9 @@ public class RunDockerTests {
 
 //	private final Gson    gson = CirilloGsonBuilder.build();
 
+    private static final long FINISHED_TIMEOUT = 60; // framework.resource.management.finished.timeout
+    private static final long CLEANUP_GRACE    = 60; // allowance for the resource manager sweep interval
+
     @Logger
     public Log         logger;
 
@@ -70,6 +79,11 @@ public class RunDockerTests {
 
     private ICommandShell   shell;           // get a command shell
     private Path            homePath;        // The home directory of the default userid
+    private EtcdDssClient   dss;             // watches and updates the DSS through etcdctl
+    private DockerContainerClient docker;    // follows the ecosystem containers
+    private final Object    shellLock = new Object(); // the startup steps take turns with the shell
+
+    private final HashMap<String, Instant> runDeletedTimes = new HashMap<>(); // when each run left the DSS
 
     /**
      * Set up the shell and the filesystem we will use later
@@ -84,6 +98,9 @@ public class RunDockerTests {
 
         // *** Obtain the home directory
         this.homePath = linuxPrimary.getHome();
+
+        this.dss = new EtcdDssClient(shell, logger);
+        this.docker = new DockerContainerClient(shell, logger);
     }
 
     /**
@@ -207,29 +224,80 @@ public class RunDockerTests {
     }
 
     /**
-     * Start the Offical Resources Container
+     * Start the ecosystem containers. Containers that do not depend on each other
+     * are started together, the timings and critical path are logged at the end.
+     * 
+     * The image hands out a single command shell, so the commands of the steps
+     * are issued on it one at a time, but the readiness waits run in the
+     * background on the Docker host and are only polled on the shell, so the
+     * containers start up alongside each other.
      * 
      * @throws Exception catchall
      */
     @Test
-    public void startResources() throws Exception {
-        logger.info("Start the Offical Resources Container");
-        String response = shell.issueCommand("bash -e galasa-test/docker/resources.sh;echo cmd-rc=$?");
-        assertThat(response).describedAs("Start the Resources Container").contains("cmd-rc=0"); // check we exited 0
+    public void startEcosystem() throws Exception {
+        StartupGraph graph = new StartupGraph(logger);
+        graph.addStep("resources", this::startResources);
+        graph.addStep("cps", this::startCps);
+        graph.addStep("ras", this::startRas);
+        graph.addStep("configureCps", this::configureCps, "cps");
+        graph.addStep("api", this::startApi, "configureCps", "ras");
+        graph.addStep("resmon", this::startResMon, "api");
+        graph.addStep("controller", this::startController, "api", "resources");
+
+        boolean started = graph.run(Duration.ofMinutes(10));
+        assertThat(started).describedAs("Ecosystem Started").isTrue();
+    }
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean started = false;
+    /*
+     * A command shell makes no promise to be thread safe, so the startup steps
+     * take turns with it
+     */
+    private String issueCommand(String command) throws IpNetworkManagerException {
+        synchronized (shellLock) {
+            return shell.issueCommand(command);
+        }
+    }
+
+    /*
+     * Wait for a container log line without holding the shell, the wait runs on
+     * the Docker host and the shell is only taken to check on it once a second
+     */
+    private boolean waitForLog(String container, String pattern, long timeoutSeconds) throws Exception {
+        String waitFile;
+        synchronized (shellLock) {
+            waitFile = docker.startLogWait(container, pattern, timeoutSeconds);
+        }
+
+        Instant expire = Instant.now().plusSeconds(timeoutSeconds + 30);
         while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if the Resources Container has started");
-            response = shell.issueCommand("docker logs galasa-resources");
-            if (response.contains("resuming normal operations")) {
-                started = true;
-                logger.info("Resources Container started");
-                break;
+            Thread.sleep(1000);
+
+            Boolean found;
+            synchronized (shellLock) {
+                found = docker.checkLogWait(waitFile);
             }
+            if (found != null) {
+                return found;
+            }
+        }
+        return false;
+    }
 
-            Thread.sleep(1000);
+    /**
+     * Start the Offical Resources Container
+     * 
+     * @throws Exception catchall
+     */
+    private void startResources() throws Exception {
+        logger.info("Start the Offical Resources Container");
+        String response = issueCommand("bash -e galasa-test/docker/resources.sh;echo cmd-rc=$?");
+        assertThat(response).describedAs("Start the Resources Container").contains("cmd-rc=0"); // check we exited 0
+
+        logger.info("Waiting for the Resources Container to start");
+        boolean started = waitForLog("galasa-resources", "resuming normal operations", 120);
+        if (started) {
+            logger.info("Resources Container started");
         }
         assertThat(started).describedAs("Resources Container Started").isTrue();
     }
@@ -239,25 +307,15 @@ public class RunDockerTests {
      * 
      * @throws Exception catchall
      */
-    @Test
-    public void startCps() throws Exception {
+    private void startCps() throws Exception {
         logger.info("Start the CPS Container");
-        String response = shell.issueCommand("bash -e galasa-test/docker/cps-etcd.sh;echo cmd-rc=$?");
+        String response = issueCommand("bash -e galasa-test/docker/cps-etcd.sh;echo cmd-rc=$?");
         assertThat(response).describedAs("Start the CPS Container").contains("cmd-rc=0"); // check we exited 0
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean started = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if the CPS has started");
-            response = shell.issueCommand("docker logs galasa-cps");
-            if (response.contains("ready to serve client requests")) {
-                started = true;
-                logger.info("CPS Container started");
-                break;
-            }
-
-            Thread.sleep(1000);
+        logger.info("Waiting for the CPS to start");
+        boolean started = waitForLog("galasa-cps", "ready to serve client requests", 120);
+        if (started) {
+            logger.info("CPS Container started");
         }
         assertThat(started).describedAs("CPS Started").isTrue();
     }
@@ -267,26 +325,21 @@ public class RunDockerTests {
      * 
      * @throws Exception catchall
      */
-    @Test
-    public void configureCps() throws Exception {
+    private void configureCps() throws Exception {
         logger.info("Setting the CPS configuration");
-        String response = shell
-                .issueCommand("ETCDCTL_API=3 etcdctl put framework.dynamicstatus.store etcd:http://172.21.0.1:2379");
+        String response = issueCommand("ETCDCTL_API=3 etcdctl put framework.dynamicstatus.store etcd:http://172.21.0.1:2379");
         assertThat(response).describedAs("Set DSS").contains("OK"); // check we exited 0
 
-        response = shell
-                .issueCommand("ETCDCTL_API=3 etcdctl put framework.resultarchive.store couchdb:http://172.21.0.1:5984");
+        response = issueCommand("ETCDCTL_API=3 etcdctl put framework.resultarchive.store couchdb:http://172.21.0.1:5984");
         assertThat(response).describedAs("Set RAS").contains("OK"); // check we exited 0
 
-        response = shell
-                .issueCommand("ETCDCTL_API=3 etcdctl put framework.credentials.store etcd:http://172.21.0.1:2379");
+        response = issueCommand("ETCDCTL_API=3 etcdctl put framework.credentials.store etcd:http://172.21.0.1:2379");
         assertThat(response).describedAs("Set CREDS").contains("OK"); // check we exited 0
 
-        response = shell
-                .issueCommand("ETCDCTL_API=3 etcdctl put framework.resource.management.dead.heartbeat.timeout 60");
+        response = issueCommand("ETCDCTL_API=3 etcdctl put framework.resource.management.dead.heartbeat.timeout 60");
         assertThat(response).describedAs("Set heartbeat timeout").contains("OK"); // check we exited 0
 
-        response = shell.issueCommand("ETCDCTL_API=3 etcdctl put framework.resource.management.finished.timeout 60");
+        response = issueCommand("ETCDCTL_API=3 etcdctl put framework.resource.management.finished.timeout " + FINISHED_TIMEOUT);
         assertThat(response).describedAs("Set finished timeout").contains("OK"); // check we exited 0
     }
 
@@ -295,29 +348,19 @@ public class RunDockerTests {
      * 
      * @throws Exception catchall
      */
-    @Test
-    public void startRas() throws Exception {
+    private void startRas() throws Exception {
         logger.info("Initialise the RAS Couchdb volume");
-        String response = shell.issueCommand("bash -e galasa-test/docker/ras-couchdb-init.sh;echo cmd-rc=$?");
+        String response = issueCommand("bash -e galasa-test/docker/ras-couchdb-init.sh;echo cmd-rc=$?");
         assertThat(response).describedAs("Initialise the RAS Volume").contains("cmd-rc=0"); // check we exited 0
 
         logger.info("Start the RAS Container");
-        response = shell.issueCommand("cd galasa-test/docker;bash -e ras-couchdb.sh;echo cmd-rc=$?");
+        response = issueCommand("cd galasa-test/docker;bash -e ras-couchdb.sh;echo cmd-rc=$?");
         assertThat(response).describedAs("Start the RAS Container").contains("cmd-rc=0"); // check we exited 0
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean started = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if the RAS has started");
-            response = shell.issueCommand("docker logs galasa-ras");
-            if (response.contains("couch_replicator_clustering : cluster stable")) {
-                started = true;
-                logger.info("RAS Container started");
-                break;
-            }
-
-            Thread.sleep(1000);
+        logger.info("Waiting for the RAS to start");
+        boolean started = waitForLog("galasa-ras", "couch_replicator_clustering : cluster stable", 120);
+        if (started) {
+            logger.info("RAS Container started");
         }
         assertThat(started).describedAs("RAS Started").isTrue();
     }
@@ -327,10 +370,9 @@ public class RunDockerTests {
      * 
      * @throws Exception catchall
      */
-    @Test
-    public void startApi() throws Exception {
+    private void startApi() throws Exception {
         logger.info("Start the API Container");
-        String response = shell.issueCommand("cd galasa-test/docker;bash -e api.sh;echo cmd-rc=$?");
+        String response = issueCommand("cd galasa-test/docker;bash -e api.sh;echo cmd-rc=$?");
         assertThat(response).describedAs("Start the API Container").contains("cmd-rc=0"); // check we exited 0
 
         Instant expire = Instant.now();
@@ -338,8 +380,8 @@ public class RunDockerTests {
         boolean started = false;
         while (Instant.now().compareTo(expire) < 0) {
             logger.info("Checking to see if the API has started");
-            response = shell.issueCommand("curl http://127.0.0.1:8181/bootstrap"); // See if the bootstrap servlet is
-                                                                                   // active
+            response = issueCommand("curl http://127.0.0.1:8181/bootstrap"); // See if the bootstrap servlet is
+                                                                             // active
             if (response.contains("framework.config.store=")) {
                 started = true;
                 logger.info("API Container started");
@@ -356,25 +398,15 @@ public class RunDockerTests {
      * 
      * @throws Exception catchall
      */
-    @Test
-    public void startResMon() throws Exception {
+    private void startResMon() throws Exception {
         logger.info("Start the ResMon Container");
-        String response = shell.issueCommand("cd galasa-test/docker;bash -e resource-monitor.sh;echo cmd-rc=$?");
+        String response = issueCommand("cd galasa-test/docker;bash -e resource-monitor.sh;echo cmd-rc=$?");
         assertThat(response).describedAs("Start the ResMon Container").contains("cmd-rc=0"); // check we exited 0
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean started = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if the ResMon has started");
-            response = shell.issueCommand("docker logs galasa-resmon");
-            if (response.contains("Resource Manager has started")) {
-                started = true;
-                logger.info("ResMon Container started");
-                break;
-            }
-
-            Thread.sleep(1000);
+        logger.info("Waiting for the ResMon to start");
+        boolean started = waitForLog("galasa-resmon", "Resource Manager has started", 120);
+        if (started) {
+            logger.info("ResMon Container started");
         }
         assertThat(started).describedAs("ResMon Started").isTrue();
     }
@@ -384,25 +416,15 @@ public class RunDockerTests {
      * 
      * @throws Exception catchall
      */
-    @Test
-    public void startController() throws Exception {
+    private void startController() throws Exception {
         logger.info("Start the Docker Controller Container");
-        String response = shell.issueCommand("cd galasa-test/docker;bash -e controller.sh;echo cmd-rc=$?");
+        String response = issueCommand("cd galasa-test/docker;bash -e controller.sh;echo cmd-rc=$?");
         assertThat(response).describedAs("Start the Docker Controller Container").contains("cmd-rc=0"); // check we exited 0
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean started = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if the Docker Controller has started");
-            response = shell.issueCommand("docker logs galasa-controller");
-            if (response.contains("Docker controller has started")) {
-                started = true;
-                logger.info("Docker Controller Container started");
-                break;
-            }
-
-            Thread.sleep(1000);
+        logger.info("Waiting for the Docker Controller to start");
+        boolean started = waitForLog("galasa-controller", "Docker controller has started", 120);
+        if (started) {
+            logger.info("Docker Controller Container started");
         }
         assertThat(started).describedAs("Docker Controller Started").isTrue();
     }
@@ -415,22 +437,17 @@ public class RunDockerTests {
     @Test
     public void runCoreIVT() throws Exception {
 
-        submitTest("dev.galasa.ivt.core", "dev.galasa.ivt.core.CoreManagerIVT", "CORE1");
+        LinkedHashMap<String, Map<String, String>> runs = new LinkedHashMap<>();
+        addTest(runs, "dev.galasa.ivt.core", "dev.galasa.ivt.core.CoreManagerIVT", "CORE1");
+        submitTests(runs);
 
         HashMap<String, String> rasIds = new HashMap<>();
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean started = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if the CoreIVT has finished");
-            if (hasRunFinished("CORE1", rasIds)) {
-                started = true;
-                logger.info("CoreIVT finished");
-                break;
-            }
-
-            Thread.sleep(1000);
+        logger.info("Waiting for the CoreIVT to finish");
+        Set<String> finished = dss.waitForRunsFinished(Collections.singleton("CORE1"), 120, rasIds);
+        boolean started = finished.contains("CORE1");
+        if (started) {
+            logger.info("CoreIVT finished");
         }
         assertThat(started).describedAs("CoreIVT Finished").isTrue();
 
@@ -448,8 +465,10 @@ public class RunDockerTests {
     @Test
     public void runAllIVTs() throws Exception {
 
-        submitTest("dev.galasa.ivt.core", "dev.galasa.ivt.core.ArtifactManagerIVT", "ART1");
-        submitTest("dev.galasa.ivt.network", "dev.galasa.ivt.network.HttpManagerIVT", "HTTP1");
+        LinkedHashMap<String, Map<String, String>> runs = new LinkedHashMap<>();
+        addTest(runs, "dev.galasa.ivt.core", "dev.galasa.ivt.core.ArtifactManagerIVT", "ART1");
+        addTest(runs, "dev.galasa.ivt.network", "dev.galasa.ivt.network.HttpManagerIVT", "HTTP1");
+        submitTests(runs);
 
         HashSet<String> runNames = new HashSet<>();
         runNames.add("ART1");
@@ -457,26 +476,12 @@ public class RunDockerTests {
 
         HashMap<String, String> rasIds = new HashMap<>();
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean finished = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if all the runs have finished");
-            Iterator<String> i = runNames.iterator();
-            while (i.hasNext()) {
-                String runName = i.next();
-                if (hasRunFinished(runName, rasIds)) {
-                    i.remove();
-                }
-            }
-
-            if (runNames.isEmpty()) {
-                logger.info("All runs finished");
-                finished = true;
-                break;
-            }
-
-            Thread.sleep(1000);
+        logger.info("Waiting for all the runs to finish");
+        Set<String> finishedRuns = dss.waitForRunsFinished(runNames, 120, rasIds);
+        runNames.removeAll(finishedRuns);
+        boolean finished = runNames.isEmpty();
+        if (finished) {
+            logger.info("All runs finished");
         }
         assertThat(finished).describedAs("All runs finished").isTrue();
 
@@ -488,35 +493,39 @@ public class RunDockerTests {
 
     /**
      * Checking to see if the runs are cleaned up after the 60 second finished
-     * timeout
+     * timeout. The DSS is watched from the start, so the cleanup latency of each
+     * run is measured rather than waited out.
      * 
      * @throws Exception - standard catchall
      */
     @Test
     public void checkRunFinishedCleanup() throws Exception {
 
-        logger.info("Waiting 60 seconds for the Run Finished cleanup routines to run");
-        Thread.sleep(20000);
-        logger.info("40 seconds to go");
-        Thread.sleep(20000);
-        logger.info("20 seconds to go");
-        Thread.sleep(20000);
-
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean deleted = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if all the runs have been deleted");
-            String response = shell.issueCommand("ETCDCTL_API=3 etcdctl get --prefix dss.framework.run.");
-            if (response.trim().isEmpty()) {
-                deleted = true;
-                logger.info("All runs deleted");
-                break;
+        logger.info("Watching for the Run Finished cleanup routines to delete the runs");
+        EtcdDssClient.RunCleanup cleanup = dss.waitForRunsDeleted(FINISHED_TIMEOUT + CLEANUP_GRACE + 120);
+        runDeletedTimes.putAll(cleanup.getDeleted());
+
+        StringBuilder report = new StringBuilder("Run cleanup latency :-");
+        ArrayList<String> late = new ArrayList<>();
+        for (Entry<String, Instant> deleted : cleanup.getDeleted().entrySet()) {
+            String runName = deleted.getKey();
+            Instant finished = cleanup.getFinished().get(runName);
+            if (finished == null) {
+                report.append("\n    " + runName + " deleted at " + deleted.getValue() + ", finished time unknown");
+                continue;
             }
 
-            Thread.sleep(1000);
+            Duration latency = Duration.between(finished, deleted.getValue());
+            report.append("\n    " + runName + " deleted " + latency.toMillis() + "ms after finishing");
+            if (latency.getSeconds() > FINISHED_TIMEOUT + CLEANUP_GRACE) {
+                late.add(runName);
+            }
         }
-        assertThat(deleted).describedAs("All runs deleted").isTrue();
+        logger.info(report.toString());
+
+        assertThat(cleanup.getRemaining()).describedAs("Runs not deleted").isEmpty();
+        assertThat(late).describedAs("Runs deleted later than the finished timeout of " + FINISHED_TIMEOUT
+                + " seconds plus " + CLEANUP_GRACE + " seconds").isEmpty();
     }
 
     /**
@@ -528,79 +537,61 @@ public class RunDockerTests {
     @Test
     public void checkRunContainerCleanup() throws Exception {
 
-        HashSet<String> containerNames = new HashSet<>();
-        containerNames.add("docker-standard-engine-core1");
-        containerNames.add("docker-standard-engine-art1");
-        containerNames.add("docker-standard-engine-http1");
+        HashSet<String> runNames = new HashSet<>();
+        runNames.add("CORE1");
+        runNames.add("ART1");
+        runNames.add("HTTP1");
 
-        Instant expire = Instant.now();
-        expire = expire.plusSeconds(120);
-        boolean deleted = false;
-        while (Instant.now().compareTo(expire) < 0) {
-            logger.info("Checking to see if all the run contianers have been deleted");
-            Iterator<String> i = containerNames.iterator();
-            while (i.hasNext()) {
-                String containerName = i.next();
-
-                String response = shell.issueCommand("docker inspect " + containerName);
-                if (response.contains("No such object")) {
-                    logger.info("Run Container " + containerName + " deleted");
-                    i.remove();
-                }
-            }
+        HashMap<String, String> containerNames = new HashMap<>();
+        for (String runName : runNames) {
+            containerNames.put("docker-standard-engine-" + runName.toLowerCase(), runName);
+        }
 
-            if (containerNames.isEmpty()) {
-                logger.info("All run containers deleted");
-                deleted = true;
-                break;
+        Instant start = Instant.now();
+        Map<String, Instant> removed = docker.waitForContainersRemoved(containerNames.keySet(), 120);
+
+        StringBuilder report = new StringBuilder("Run container removal latency :-");
+        for (Entry<String, Instant> container : removed.entrySet()) {
+            Instant runDeleted = runDeletedTimes.get(containerNames.get(container.getKey()));
+            if (runDeleted != null) {
+                report.append("\n    " + container.getKey() + " removed "
+                        + Duration.between(runDeleted, container.getValue()).toMillis() + "ms after the run was deleted");
+            } else {
+                report.append("\n    " + container.getKey() + " removed "
+                        + Duration.between(start, container.getValue()).toMillis() + "ms after the check started");
             }
-
-            Thread.sleep(1000);
         }
-        assertThat(deleted).describedAs("All run containers deleted").isTrue();
+        logger.info(report.toString());
+
+        HashSet<String> remaining = new HashSet<>(containerNames.keySet());
+        remaining.removeAll(removed.keySet());
+        assertThat(remaining).describedAs("Run containers not deleted").isEmpty();
     }
 
     // TODO Further integration testing
 
-    private boolean hasRunFinished(String runName, HashMap<String, String> rasIds) throws IpNetworkManagerException {
-        String response = shell.issueCommand("ETCDCTL_API=3 etcdctl get dss.framework.run." + runName + ".status");
-        if (!response.contains("finished")) {
-            return false;
-        }
+    private void addTest(Map<String, Map<String, String>> runs, String bundle, String test, String runName) {
 
-        logger.info("Run " + runName + " finished");
+        LinkedHashMap<String, String> properties = new LinkedHashMap<>();
+        properties.put("request.type", "inttests");
+        properties.put("requestor", "Integrated Tests");
+        properties.put("local", "false");
+        properties.put("obr", "mvn:dev.galasa/dev.galasa.ivt.obr/0.3.0-SNAPSHOT/obr");
+        properties.put("test", bundle + "/" + test);
+        properties.put("bundle", bundle);
+        properties.put("testclass", test);
+        properties.put("repository", "http://172.21.0.1:8080/maven");
+        properties.put("queued", Instant.now().toString());
 
-        response = shell.issueCommand("ETCDCTL_API=3 etcdctl get dss.framework.run." + runName + ".ras.id");
-        response = response.trim();
-        if (!response.isEmpty()) {
-            rasIds.put(runName, response);
-        }
+        // *** Put it on the queue, written in the same transaction as the rest
+        properties.put("status", "queued");
 
-        return true;
+        runs.put(runName, properties);
     }
 
-    private void submitTest(String bundle, String test, String runName) throws IpNetworkManagerException {
-
-        putRunProperty(runName, "status", "creating");
-        putRunProperty(runName, "request.type", "inttests");
-        putRunProperty(runName, "requestor", "Integrated Tests");
-        putRunProperty(runName, "local", "false");
-        putRunProperty(runName, "obr", "mvn:dev.galasa/dev.galasa.ivt.obr/0.3.0-SNAPSHOT/obr");
-        putRunProperty(runName, "test", bundle + "/" + test);
-        putRunProperty(runName, "bundle", bundle);
-        putRunProperty(runName, "testclass", test);
-        putRunProperty(runName, "repository", "http://172.21.0.1:8080/maven");
-        putRunProperty(runName, "queued", Instant.now().toString());
-
-        // *** Now put it on the queue
-        putRunProperty(runName, "status", "queued");
-
-    }
-
-    private void putRunProperty(String runName, String property, String value) throws IpNetworkManagerException {
-        String response = shell.issueCommand(
-                "ETCDCTL_API=3 etcdctl put dss.framework.run." + runName + "." + property + " '" + value + "'");
-        assertThat(response).describedAs("PUT was OK").contains("OK"); // check we exited 0
+    private void submitTests(Map<String, Map<String, String>> runs) throws IpNetworkManagerException {
+        boolean submitted = dss.submitRuns(runs);
+        assertThat(submitted).describedAs("Run submission transaction was OK").isTrue();
     }
 
     // TODO retrieve all the RAS and docker logs etc
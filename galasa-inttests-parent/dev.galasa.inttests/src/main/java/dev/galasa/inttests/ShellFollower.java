@@ -0,0 +1,38 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+/**
+ * Builds shell commands in which a consumer reads the output of a long running
+ * follower, such as docker logs -f or etcdctl watch, and returns as soon as the
+ * consumer has what it needs.
+ *
+ * A follower in a process substitution or a pipeline outlives its reader until
+ * it next writes or its timeout expires, holding the output of the command
+ * open, so the command does not return. Here the follower runs in the
+ * background in a process group of its own, writing to a fifo, and the whole
+ * group is killed as soon as the consumer exits.
+ */
+final class ShellFollower {
+
+    private ShellFollower() {
+    }
+
+    /**
+     * @param follower the command to follow, its stderr is discarded unless it redirects it
+     * @param consumer the command that reads the follower's output from the file $FOLLOWED
+     * @param rcMarker the marker the consumer's return code is echoed with, as rcMarker=rc
+     * @return the command
+     */
+    static String follow(String follower, String consumer, String rcMarker) {
+        return "FOLLOWED=$(mktemp -u);mkfifo $FOLLOWED;"
+                + "set -m;(" + follower + ") > $FOLLOWED 2>/dev/null & FOLLOWER=$!;set +m;"
+                + consumer + ";RC=$?;"
+                + "kill -- -$FOLLOWER 2>/dev/null;wait $FOLLOWER 2>/dev/null;rm -f $FOLLOWED;"
+                + "echo " + rcMarker + "=$RC";
+    }
+
+}
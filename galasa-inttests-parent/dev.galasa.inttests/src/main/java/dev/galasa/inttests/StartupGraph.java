@@ -0,0 +1,189 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Brings up a set of named steps, each starting as soon as the steps it
+ * depends on have completed, so independent steps run in parallel.
+ *
+ * Steps must be added after the steps they depend on, which keeps the graph
+ * acyclic. A step whose dependency failed is not run. Once complete, the
+ * timings of each step and the critical path through the graph are reported.
+ */
+public class StartupGraph {
+
+    /**
+     * The work of a step, normally starting something and waiting for it to be
+     * ready. Any exception or assertion failure fails the step.
+     */
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    private final Log                            logger;
+    private final LinkedHashMap<String, Node>    nodes = new LinkedHashMap<>();
+
+    public StartupGraph(Log logger) {
+        this.logger = logger;
+    }
+
+    public StartupGraph addStep(String name, Step step, String... dependsOn) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Step " + name + " has already been added");
+        }
+        for (String dependency : dependsOn) {
+            if (!nodes.containsKey(dependency)) {
+                throw new IllegalArgumentException("Step " + name + " depends on " + dependency + " which has not been added yet");
+            }
+        }
+        nodes.put(name, new Node(name, step, Arrays.asList(dependsOn)));
+        return this;
+    }
+
+    /**
+     * Run all the steps, as many at once as are ready.
+     *
+     * @param timeout the longest the whole graph may take
+     * @return true if every step completed successfully
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean run(Duration timeout) throws InterruptedException {
+        return run(timeout, nodes.size());
+    }
+
+    /**
+     * Run all the steps, no more than the given number at once. With one, the
+     * steps run one after another in dependency order.
+     *
+     * @param timeout     the longest the whole graph may take
+     * @param parallelism the most steps to run at once
+     * @return true if every step completed successfully
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean run(Duration timeout, int parallelism) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, nodes.size())));
+        Instant graphStart = Instant.now();
+        try {
+            ArrayList<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (Node node : nodes.values()) {
+                CompletableFuture<?>[] dependencies = node.dependsOn.stream()
+                        .map(d -> nodes.get(d).future)
+                        .toArray(CompletableFuture<?>[]::new);
+                node.future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> runNode(node), executor);
+                futures.add(node.future);
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                logger.error("Startup did not complete within " + timeout.getSeconds() + " seconds");
+            } catch (Exception e) {
+                // *** A step failed, the failure is recorded against the step itself
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info(report(graphStart));
+
+        return nodes.values().stream().allMatch(n -> n.succeeded);
+    }
+
+    private void runNode(Node node) {
+        node.start = Instant.now();
+        logger.info("Starting step " + node.name);
+        try {
+            node.step.run();
+            node.succeeded = true;
+            logger.info("Step " + node.name + " complete");
+        } catch (Throwable t) {
+            logger.error("Step " + node.name + " failed", t);
+            throw new IllegalStateException("Step " + node.name + " failed", t);
+        } finally {
+            node.end = Instant.now();
+        }
+    }
+
+    private String report(Instant graphStart) {
+        StringBuilder sb = new StringBuilder("Startup steps :-");
+        for (Node node : nodes.values()) {
+            sb.append("\n    " + node.name + " - ");
+            if (node.start == null) {
+                sb.append("not run");
+                continue;
+            }
+            sb.append(node.succeeded ? "ok" : "failed");
+            sb.append(", started at +" + Duration.between(graphStart, node.start).getSeconds() + "s");
+            if (node.end != null) {
+                sb.append(", took " + Duration.between(node.start, node.end).getSeconds() + "s");
+            }
+        }
+
+        List<String> criticalPath = criticalPath();
+        if (!criticalPath.isEmpty()) {
+            Node last = nodes.get(criticalPath.get(criticalPath.size() - 1));
+            sb.append("\nCritical path " + String.join(" -> ", criticalPath) + ", "
+                    + Duration.between(graphStart, last.end).getSeconds() + "s");
+        }
+        return sb.toString();
+    }
+
+    /*
+     * From the step that finished last, walk back through the dependency that
+     * finished last each time
+     */
+    private List<String> criticalPath() {
+        Node current = latest(nodes.keySet());
+        ArrayList<String> path = new ArrayList<>();
+        while (current != null) {
+            path.add(0, current.name);
+            current = latest(current.dependsOn);
+        }
+        return path;
+    }
+
+    private Node latest(Iterable<String> names) {
+        Node latest = null;
+        for (String name : names) {
+            Node node = nodes.get(name);
+            if (node.end != null && (latest == null || node.end.isAfter(latest.end))) {
+                latest = node;
+            }
+        }
+        return latest;
+    }
+
+    private static class Node {
+        private final String           name;
+        private final Step             step;
+        private final List<String>     dependsOn;
+        private CompletableFuture<Void> future;
+        private volatile Instant       start;
+        private volatile Instant       end;
+        private volatile boolean       succeeded;
+
+        private Node(String name, Step step, List<String> dependsOn) {
+            this.name = name;
+            this.step = step;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+}
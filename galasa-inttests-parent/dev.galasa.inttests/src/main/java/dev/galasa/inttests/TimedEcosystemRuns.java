@@ -0,0 +1,190 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
+import dev.galasa.galasaecosystem.GalasaEcosystemManagerException;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+
+/**
+ * Submits and waits for ecosystem runs, recording how long each phase of the
+ * run took.
+ *
+ * The phases come from the client side timings and from the timestamps in the
+ * run returned by waitForRun, and are stored as timings/&lt;run&gt;.json in the
+ * stored artifacts of the calling test. The phases are :-
+ * 
+ * submit    - the submitRun call
+ * queued    - run queued until the framework started it
+ * startup   - framework start until the first test method, manager initialisation and provisioning
+ * execution - the first test method starting until the last one ended
+ * teardown  - the last test method ending until the run ended
+ * 
+ * A phase is omitted when the run does not carry the timestamps it needs.
+ * Recording the timings never fails the test.
+ */
+public class TimedEcosystemRuns {
+
+    private final Gson                                   gson      = new GsonBuilder().setPrettyPrinting().create();
+
+    private final IGenericEcosystem                      ecosystem;
+    private final Path                                   storedArtifactRoot;
+    private final Log                                    logger;
+
+    private final HashMap<String, Duration>              submitted = new HashMap<>();
+    private final HashMap<String, Map<String, Duration>> phases    = new HashMap<>();
+
+    public TimedEcosystemRuns(IGenericEcosystem ecosystem, Path storedArtifactRoot, Log logger) {
+        this.ecosystem = ecosystem;
+        this.storedArtifactRoot = storedArtifactRoot;
+        this.logger = logger;
+    }
+
+    /**
+     * As {@link IGenericEcosystem#submitRun}, timing the submission
+     */
+    public String submitRun(String runType, String requestor, String groupName, String bundleName, String testName,
+            String mavenRepository, String obr, String stream, Properties overrides) throws GalasaEcosystemManagerException {
+        Instant start = Instant.now();
+        String runName = ecosystem.submitRun(runType, requestor, groupName, bundleName, testName, mavenRepository, obr,
+                stream, overrides);
+        submitted.put(runName, Duration.between(start, Instant.now()));
+        return runName;
+    }
+
+    /**
+     * As {@link IGenericEcosystem#waitForRun}, storing the phase timings of the run
+     */
+    public JsonObject waitForRun(String runName) throws GalasaEcosystemManagerException, InterruptedException {
+        JsonObject run = ecosystem.waitForRun(runName);
+
+        try {
+            storeTimings(runName, run);
+        } catch (Exception e) {
+            logger.warn("Unable to record the timings of run " + runName, e);
+        }
+
+        return run;
+    }
+
+    /**
+     * @return the phase timings of a run that has been waited for, keyed on phase name
+     */
+    public Map<String, Duration> getPhases(String runName) {
+        Map<String, Duration> runPhases = phases.get(runName);
+        return runPhases == null ? Collections.emptyMap() : runPhases;
+    }
+
+    private void storeTimings(String runName, JsonObject run) throws IOException {
+        Instant queued = getInstant(run, "queued");
+        Instant startTime = getInstant(run, "startTime");
+        Instant endTime = getInstant(run, "endTime");
+
+        Instant firstMethodStart = null;
+        Instant lastMethodEnd = null;
+        JsonElement methods = run.get("methods");
+        if (methods != null && methods.isJsonArray()) {
+            JsonArray methodArray = methods.getAsJsonArray();
+            for (JsonElement method : methodArray) {
+                if (!method.isJsonObject()) {
+                    continue;
+                }
+                Instant methodStart = getInstant(method.getAsJsonObject(), "startTime");
+                Instant methodEnd = getInstant(method.getAsJsonObject(), "endTime");
+                if (methodStart != null && (firstMethodStart == null || methodStart.isBefore(firstMethodStart))) {
+                    firstMethodStart = methodStart;
+                }
+                if (methodEnd != null && (lastMethodEnd == null || methodEnd.isAfter(lastMethodEnd))) {
+                    lastMethodEnd = methodEnd;
+                }
+            }
+        }
+
+        LinkedHashMap<String, Duration> runPhases = new LinkedHashMap<>();
+        addPhase(runPhases, "submit", submitted.get(runName));
+        addPhase(runPhases, "queued", between(queued, startTime));
+        addPhase(runPhases, "startup", between(startTime, firstMethodStart));
+        addPhase(runPhases, "execution", between(firstMethodStart, lastMethodEnd));
+        addPhase(runPhases, "teardown", between(lastMethodEnd, endTime));
+        phases.put(runName, runPhases);
+
+        JsonObject phasesMillis = new JsonObject();
+        for (Entry<String, Duration> phase : runPhases.entrySet()) {
+            phasesMillis.addProperty(phase.getKey(), phase.getValue().toMillis());
+        }
+
+        JsonObject timings = new JsonObject();
+        timings.addProperty("runName", runName);
+        if (run.has("testName")) {
+            timings.add("testName", run.get("testName"));
+        }
+        if (run.has("result")) {
+            timings.add("result", run.get("result"));
+        }
+        timings.add("phasesMillis", phasesMillis);
+
+        String json = gson.toJson(timings);
+        logger.info("Timings for run " + runName + " :-\n" + json);
+
+        Path timingsFile = storedArtifactRoot.resolve("timings").resolve(runName + ".json");
+        Files.write(timingsFile, json.getBytes(StandardCharsets.UTF_8),
+                new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
+    }
+
+    private void addPhase(Map<String, Duration> runPhases, String name, Duration duration) {
+        if (duration != null) {
+            runPhases.put(name, duration);
+        }
+    }
+
+    private Duration between(Instant from, Instant to) {
+        if (from == null || to == null) {
+            return null;
+        }
+        return Duration.between(from, to);
+    }
+
+    /**
+     * @return a timestamp of a run or test method in the run JSON, or null if it
+     *         is missing or not an ISO-8601 instant
+     */
+    public static Instant getInstant(JsonObject object, String name) {
+        JsonElement element = object.get(name);
+        if (element == null || !element.isJsonPrimitive()) {
+            return null;
+        }
+        try {
+            return Instant.parse(element.getAsString());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+}
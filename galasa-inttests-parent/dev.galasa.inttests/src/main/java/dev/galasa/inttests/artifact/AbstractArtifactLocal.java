@@ -5,33 +5,16 @@
  */
 package dev.galasa.inttests.artifact;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.Test;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
-public abstract class AbstractArtifactLocal {
+public abstract class AbstractArtifactLocal extends AbstractEcosystemTest {
     
     @Test
     public void testArtifactIvtTest() throws Exception {
 
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.artifact.manager.ivt", 
-                "dev.galasa.artifact.manager.ivt.ArtifactManagerIVT", 
-                null, 
-                null, 
-                null, 
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.artifact.manager.ivt", "dev.galasa.artifact.manager.ivt.ArtifactManagerIVT");
     }
 
     abstract protected IGenericEcosystem getEcosystem();
@@ -8,11 +8,13 @@ package dev.galasa.inttests.compilation;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,6 +44,11 @@ import dev.galasa.linux.LinuxManagerException;
 
 public abstract class AbstractCompilationLocal {
     
+    private static final String GRADLE_CACHE_DIRECTORY = ".galasa-inttests/cache/gradle";
+    private static final String GRADLE_CACHE_VERIFIED  = ".verified";
+    private static final String GRADLE_SHARED_HOME     = ".galasa-inttests/gradle-home";
+    private static final String GRADLE_SHARED_LOCK     = ".galasa-inttests/gradle-home.lock";
+    
     @RunName
     public String           runName;
     
@@ -51,6 +58,10 @@ public abstract class AbstractCompilationLocal {
     @HttpClient
     public IHttpClient      client;
     
+    // Only for archive downloads, which set conditional and range headers on it and clear them after each request
+    @HttpClient
+    public IHttpClient      archiveClient;
+    
     @StoredArtifactRoot
     public Path             storedArtifactRoot;
     
@@ -61,10 +72,33 @@ public abstract class AbstractCompilationLocal {
     @TestProperty(prefix = "gradle.zip",suffix = "location", required = true)
     public String           gradleZipLocation;
     
+    @TestProperty(prefix = "gradle.zip",suffix = "sha256", required = false)
+    public String           gradleZipSha256Property;
+    
+    // "cold" (the default) builds with an empty gradle home in the run directory, 
+    // "warm" builds with a gradle home, build cache and daemons shared between runs on the image
+    @TestProperty(prefix = "gradle.user.home",suffix = "mode", required = false)
+    public String           gradleUserHomeMode;
+    
+    // Where downloaded archives are cached on the test JVM's file system
+    @TestProperty(prefix = "http.archive.cache",suffix = "directory", required = false)
+    public String           archiveCacheDirectory;
+    
+    // A pre-seeded directory of archives, laid out as host/path, for use without a network
+    @TestProperty(prefix = "http.archive.mirror",suffix = "directory", required = false)
+    public String           archiveMirrorDirectory;
+    
+    // "auto" (the default) lets the image fetch archives with a known checksum itself when it can reach
+    // their host, "remote-fetch" always has the image fetch them, "local-relay" always relays them from the test JVM
+    @TestProperty(prefix = "http.archive.transfer",suffix = "mode", required = false)
+    public String           archiveTransferMode;
+    
     public String           gradleZipVersion;
     
     protected String        javaHomeCommand;
     
+    private ArchiveTransfer archiveTransfer;
+    
     /*
      * Initialise all resources needed for testing.
      * 
@@ -115,12 +149,56 @@ public abstract class AbstractCompilationLocal {
     }
         
     /*
-     * Method for downloading a resource from a http location.
+     * Method for downloading a resource from a http location straight into a path,
+     * usually on the linux image, without a local copy.
      * 
      * @param   downloadLocation    string containing the url of the resource to be downloaded
-     * @return  tempFile            the temporary location of the file that was downloaded.
+     * @param   target              where to write the resource, replaced if it exists
+     * @param   expectedSha256      the lower case hex SHA-256 the resource must have, may be null
+     * @return  sha256              the lower case hex SHA-256 of the resource
      */
-    protected Path downloadHttp(String downloadLocation) throws ResourceUnavailableException {
+    protected String downloadHttp(String downloadLocation, Path target, String expectedSha256) throws ResourceUnavailableException {
+        logger.trace("Streaming Http Resource: " + downloadLocation + " to " + target.toString());
+        return new HttpStreamTransfer(archiveClient, logger).transfer(downloadLocation, target, expectedSha256);
+    }
+    
+    /*
+     * Puts an archive on the linux image by whichever of the ArchiveTransfer strategies
+     * is quickest, relaying it with downloadHttp if the image cannot fetch it itself.
+     * 
+     * @param   downloadLocation    string containing the url of the archive
+     * @param   target              where to put the archive on the image, replaced if it exists
+     * @param   expectedSha256      the lower case hex SHA-256 the archive must have, may be null
+     * @return  sha256              the lower case hex SHA-256 of the archive, or null if it was not worked out
+     */
+    protected String transferArchive(String downloadLocation, Path target, String expectedSha256) throws ResourceUnavailableException {
+        return transferArchive(downloadLocation, target, expectedSha256, this::downloadHttp);
+    }
+    
+    /*
+     * As transferArchive, with the given way of relaying the archive from the test JVM
+     */
+    protected String transferArchive(String downloadLocation, Path target, String expectedSha256, ArchiveTransfer.Relay relay) throws ResourceUnavailableException {
+        if (archiveTransfer == null) {
+            try {
+                archiveTransfer = new ArchiveTransfer(getLinuxImage().getCommandShell(), logger, getLinuxImage().getHome(), archiveTransferMode);
+            } catch (LinuxManagerException e) {
+                throw new ResourceUnavailableException("Unable to access the linux image", e);
+            }
+        }
+        
+        ArchiveTransfer.Result result = archiveTransfer.transfer(downloadLocation, target, expectedSha256, relay);
+        logger.trace("Archive " + downloadLocation + " transferred by " + result.getStrategy());
+        return result.getSha256();
+    }
+    
+    /*
+     * Method for reading a small resource, such as a checksum file, from a http location.
+     * 
+     * @param   downloadLocation    string containing the url of the resource to be read
+     * @return  content             the content of the resource
+     */
+    protected String readHttp(String downloadLocation) throws ResourceUnavailableException {
 
         logger.trace("Retrieving Http Resource: " + downloadLocation);
 
@@ -134,15 +212,11 @@ public abstract class AbstractCompilationLocal {
         client.setURI(uri);
 
         try (CloseableHttpResponse response = client.getFile(uri.getPath())) {
-
-            Path archive = Files.createTempFile("galasa.test.compilation", ".temp");
-            archive.toFile().deleteOnExit();
-
             HttpEntity entity = response.getEntity();
 
-            Files.copy(entity.getContent(), archive, StandardCopyOption.REPLACE_EXISTING);
-
-            return archive;
+            try (InputStream is = entity.getContent()) {
+                return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
         } catch (ConnectionClosedException e) {
             logger.error("Transfer connection closed early, usually caused by network instability, marking as resource unavailable so can try again later",e);
             throw new ResourceUnavailableException("Network error downloading from: " + uri.toString(), e);
@@ -152,42 +226,137 @@ public abstract class AbstractCompilationLocal {
     }
         
     /*
-     * Installs gradle (Download locally, upload to image, and unzip on image), 
-     * then returns the path to the gradle bin directory. 
+     * As downloadHttp, but served from the archive cache where possible.
+     * The returned file belongs to the cache and must not be altered.
+     * 
+     * @param   downloadLocation    string containing the url of the resource to be downloaded
+     * @return  archive             the local location of the file
+     */
+    protected Path downloadHttpCached(String downloadLocation) throws ResourceUnavailableException {
+        Path cacheDirectory;
+        if (archiveCacheDirectory != null && !archiveCacheDirectory.trim().isEmpty()) {
+            cacheDirectory = Paths.get(archiveCacheDirectory.trim());
+        } else {
+            cacheDirectory = Paths.get(System.getProperty("user.home"), ".galasa", "inttests", "archive-cache");
+        }
+        
+        Path mirrorDirectory = null;
+        if (archiveMirrorDirectory != null && !archiveMirrorDirectory.trim().isEmpty()) {
+            mirrorDirectory = Paths.get(archiveMirrorDirectory.trim());
+        }
+        
+        return new HttpArchiveCache(archiveClient, logger, cacheDirectory, mirrorDirectory).retrieve(downloadLocation);
+    }
+        
+    /*
+     * Installs gradle, then returns the path to the gradle bin directory.
+     * 
+     * Distributions are kept on the image in a cache keyed on the version and the
+     * SHA-256 of the zip, so a distribution that has already been unpacked and 
+     * verified by an earlier run is reused. Only on a cache miss is the zip 
+     * streamed onto the image and unzipped.
      * 
      * @return    gradleWorkingDir    The path to the gradle installation directory.
      */
     private Path installGradle() throws ResourceUnavailableException, LinuxManagerException, IOException, IpNetworkManagerException {
-        // Download Gradle
         logger.info("Installing Gradle");
-        logger.trace("Downloading Gradle Zip from: " + gradleZipLocation);
-        Path localGradleArchive = downloadHttp(gradleZipLocation);
-        Path runLocation = getLinuxImage().getHome().resolve(runName);
-        Path remoteGradleArchive = runLocation.resolve("gradle-" + gradleZipVersion + ".zip");
-        Path remoteGradleDir = runLocation.resolve("gradle");
+        Path gradleCache = getLinuxImage().getHome().resolve(GRADLE_CACHE_DIRECTORY);
+        Files.createDirectories(gradleCache);
+        
+        // Build the distribution in a directory private to this run, then move it into
+        // the cache in one step so concurrent runs never see a half unpacked distribution
+        Path stagingDir = testRunDirectory.resolve("gradle");
+        Path remoteGradleArchive = stagingDir.resolve("gradle-" + gradleZipVersion + ".zip");
+        
+        // Without a known checksum we have to download the zip to find the cache key
+        boolean downloaded = false;
+        String gradleZipSha256 = getExpectedGradleSha256();
+        if (gradleZipSha256 == null) {
+            Files.createDirectories(stagingDir);
+            logger.trace("Transferring Gradle Zip from: " + gradleZipLocation + " to " + remoteGradleArchive.toString());
+            gradleZipSha256 = transferArchive(gradleZipLocation, remoteGradleArchive, null);
+            downloaded = true;
+        }
+        
+        Path cachedGradleDir = gradleCache.resolve("gradle-" + gradleZipVersion + "-" + gradleZipSha256);
+        Path gradleWorkingDir = cachedGradleDir.resolve("gradle-" + gradleZipVersion + "/bin");
+        
+        if (Files.exists(cachedGradleDir.resolve(GRADLE_CACHE_VERIFIED))) {
+            if (isGradleVersion(gradleWorkingDir)) {
+                logger.info("Using cached Gradle distribution: " + cachedGradleDir.toString());
+                if (downloaded) {
+                    Files.delete(remoteGradleArchive);
+                }
+                return gradleWorkingDir;
+            }
+            logger.warn("Cached Gradle distribution failed verification, replacing it: " + cachedGradleDir.toString());
+            getLinuxImage().getCommandShell().issueCommand("rm -rf " + cachedGradleDir.toString());
+        }
         
-        // Upload Gradle
-        logger.trace("Uploading gradle archive to remote image");
-        logger.trace("Copying: " + localGradleArchive.toString() + " to " + remoteGradleArchive.toString());
-        Files.copy(localGradleArchive, remoteGradleArchive);
+        // Download Gradle, checking the checksum as it arrives on the image
+        if (!downloaded) {
+            Files.createDirectories(stagingDir);
+            logger.trace("Transferring Gradle Zip from: " + gradleZipLocation + " to " + remoteGradleArchive.toString());
+            transferArchive(gradleZipLocation, remoteGradleArchive, gradleZipSha256);
+        }
         
         // Unzip Gradle
         logger.trace("Unzipping gradle archive on remote image");
-        unpackOnRemote(remoteGradleArchive, remoteGradleDir);
-        
-        Path gradleWorkingDir = remoteGradleDir.resolve("gradle-" + gradleZipVersion + "/bin");
+        unpackOnRemote(remoteGradleArchive, stagingDir);
+        Files.delete(remoteGradleArchive);
         
         logger.trace("Checking unpacked gradle version");
-        String gradleVersion = getLinuxImage().getCommandShell().issueCommand(
-                javaHomeCommand + "; " +
-                gradleWorkingDir + "/gradle -v"
-        );
+        assertThat(isGradleVersion(stagingDir.resolve("gradle-" + gradleZipVersion + "/bin"))).isTrue();
+        Files.write(stagingDir.resolve(GRADLE_CACHE_VERIFIED), gradleZipSha256.getBytes());
         
-        assertThat(gradleVersion).contains(gradleZipVersion);
+        logger.trace("Adding Gradle distribution to the cache: " + cachedGradleDir.toString());
+        String cacheRC = getLinuxImage().getCommandShell().issueCommand(
+                "mv -T " + stagingDir.toString() + " " + cachedGradleDir.toString()
+                + "; echo RC=$?"
+        );
+        if (!cacheRC.trim().equals("RC=0")) {
+            // Another run cached the same distribution first, carry on with our own copy
+            logger.trace("Gradle distribution already cached by another run, using the copy in the run directory");
+            return stagingDir.resolve("gradle-" + gradleZipVersion + "/bin");
+        }
         
         return gradleWorkingDir;
     }
+    
+    /*
+     * The SHA-256 the gradle zip is expected to have, either from the test property
+     * or from the checksum file Gradle publishes alongside each distribution.
+     * 
+     * @return    sha256    The lower case hex checksum, or null if it is not known
+     */
+    private String getExpectedGradleSha256() {
+        if (gradleZipSha256Property != null && !gradleZipSha256Property.trim().isEmpty()) {
+            return gradleZipSha256Property.trim().toLowerCase();
+        }
         
+        try {
+            String checksum = readHttp(gradleZipLocation + ".sha256").trim().toLowerCase();
+            if (checksum.matches("[0-9a-f]{64}")) {
+                return checksum;
+            }
+            logger.trace("No usable checksum published for: " + gradleZipLocation);
+        } catch (ResourceUnavailableException e) {
+            logger.trace("Unable to retrieve the published checksum for: " + gradleZipLocation, e);
+        }
+        return null;
+    }
+    
+    /*
+     * Runs gradle -v from the bin directory and checks it reports the expected version
+     */
+    private boolean isGradleVersion(Path gradleBinDir) throws IpNetworkManagerException, LinuxManagerException {
+        String gradleVersion = getLinuxImage().getCommandShell().issueCommand(
+                javaHomeCommand + "; " +
+                gradleBinDir + "/gradle -v"
+        );
+        
+        return gradleVersion.contains(gradleZipVersion);
+    }
     
     /*
      * Runs and Gradle build against the prepared Simplatform code.
@@ -205,12 +374,26 @@ public abstract class AbstractCompilationLocal {
         //         * User home directory
         //         * Option to ensure output is logger friendly
         //        * The task(s) to be executed.
-        String buildCommand = javaHomeCommand + "; "
-                + "cd " + projectDirectory.toString() + "; "
-                + gradleBin.toString() + "/gradle "
-                + "-Dgradle.user.home=" + testRunDirectory + "/.gradle "
-                + "--console plain "
-                + "build";
+        String buildCommand;
+        if (isWarmGradleHome()) {
+            // A shared lock, so warm builds run side by side but never while the home is being set up.
+            // Gradle itself locks the dependency and build caches between concurrent builds.
+            Path sharedGradleHome = prepareSharedGradleHome();
+            buildCommand = javaHomeCommand + "; "
+                    + "cd " + projectDirectory.toString() + "; "
+                    + "flock -s " + getLinuxImage().getHome().resolve(GRADLE_SHARED_LOCK) + " "
+                    + gradleBin.toString() + "/gradle "
+                    + "-Dgradle.user.home=" + sharedGradleHome + " "
+                    + "--console plain "
+                    + "build";
+        } else {
+            buildCommand = javaHomeCommand + "; "
+                    + "cd " + projectDirectory.toString() + "; "
+                    + gradleBin.toString() + "/gradle "
+                    + "-Dgradle.user.home=" + testRunDirectory + "/.gradle "
+                    + "--console plain "
+                    + "build";
+        }
         
         logger.info("Issuing Command: " + buildCommand);
         
@@ -220,6 +403,38 @@ public abstract class AbstractCompilationLocal {
         logger.info("OUTPUT FOR TEST: " + managerBuildResults);
     }
     
+    /*
+     * @return  true if the build should use the gradle home shared between runs
+     */
+    protected boolean isWarmGradleHome() {
+        return "warm".equalsIgnoreCase(gradleUserHomeMode);
+    }
+    
+    /*
+     * Creates the shared gradle home if it does not exist yet, with the build cache and 
+     * daemon enabled. Done under an exclusive lock so no build can start against a 
+     * half configured home.
+     * 
+     * @return  sharedGradleHome    The path to the shared gradle home on the image
+     */
+    private Path prepareSharedGradleHome() throws IpNetworkManagerException, LinuxManagerException {
+        Path sharedGradleHome = getLinuxImage().getHome().resolve(GRADLE_SHARED_HOME);
+        Path gradleProperties = sharedGradleHome.resolve("gradle.properties");
+        Path lock = getLinuxImage().getHome().resolve(GRADLE_SHARED_LOCK);
+        
+        logger.info("Using the shared gradle home: " + sharedGradleHome.toString());
+        String rc = getLinuxImage().getCommandShell().issueCommand(
+                "mkdir -p " + sharedGradleHome.toString() + "; "
+                + "flock -x " + lock.toString() + " sh -c '"
+                + "[ -f " + gradleProperties.toString() + " ] || "
+                + "printf \"org.gradle.caching=true\\norg.gradle.daemon=true\\n\" > " + gradleProperties.toString()
+                + "'; echo RC=$?"
+        );
+        assertThat(rc).isEqualToIgnoringWhitespace("RC=0");
+        
+        return sharedGradleHome;
+    }
+    
     /**
      * Stores a file in the RAS. Function will retrieve the content from the file and store it the ras at a location realtive to the run directory.
      * @param     file        Path to the file to be stored.
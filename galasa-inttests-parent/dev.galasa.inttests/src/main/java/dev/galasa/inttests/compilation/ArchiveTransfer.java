@@ -0,0 +1,248 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.compilation;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.framework.spi.ResourceUnavailableException;
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.ipnetwork.IpNetworkManagerException;
+
+/**
+ * Gets an archive onto a Linux image by the quickest route available.
+ *
+ * cache-hit    - an archive with the expected SHA-256 is already in the archive
+ *                cache on the image, and is copied from there
+ * remote-fetch - the image downloads the archive itself with curl, and checks
+ *                its SHA-256
+ * local-relay  - the test JVM downloads the archive and passes it on to the
+ *                image
+ *
+ * Unless the mode says otherwise, an archive with an expected SHA-256 is
+ * fetched by the image when it can reach the host, the connectivity to each
+ * host being probed the first time an archive is needed from it. Without an
+ * expected SHA-256 the archive is relayed, so the relay's own caching applies.
+ * If a remote fetch fails, the archive is relayed instead.
+ *
+ * An archive is only added to the archive cache on the image when it has an
+ * expected SHA-256, as nothing else could ever be found there again.
+ */
+public class ArchiveTransfer {
+
+    private static final String ARCHIVE_CACHE_DIRECTORY = ".galasa-inttests/cache/archives";
+
+    public static final String  MODE_AUTO               = "auto";
+    public static final String  MODE_LOCAL_RELAY        = "local-relay";
+    public static final String  MODE_REMOTE_FETCH       = "remote-fetch";
+
+    public enum Strategy {
+        CACHE_HIT,
+        REMOTE_FETCH,
+        LOCAL_RELAY
+    }
+
+    /**
+     * How the test JVM passes an archive on to the image
+     */
+    public interface Relay {
+        /*
+         * @return  sha256  the lower case hex SHA-256 of the archive, or null if it was not worked out
+         */
+        String relay(String downloadLocation, Path target, String expectedSha256) throws ResourceUnavailableException;
+    }
+
+    private final ICommandShell            shell;
+    private final Log                      logger;
+    private final Path                     archiveCache;
+    private final String                   mode;
+
+    private final HashMap<String, Boolean> reachableHosts = new HashMap<>();
+
+    /*
+     * @param   mode    auto, local-relay or remote-fetch, auto if null
+     */
+    public ArchiveTransfer(ICommandShell shell, Log logger, Path home, String mode) throws ResourceUnavailableException {
+        this.shell = shell;
+        this.logger = logger;
+        this.archiveCache = home.resolve(ARCHIVE_CACHE_DIRECTORY);
+
+        if (mode == null || mode.trim().isEmpty()) {
+            this.mode = MODE_AUTO;
+        } else {
+            this.mode = mode.trim().toLowerCase();
+        }
+        if (!this.mode.equals(MODE_AUTO) && !this.mode.equals(MODE_LOCAL_RELAY) && !this.mode.equals(MODE_REMOTE_FETCH)) {
+            throw new ResourceUnavailableException("Invalid archive transfer mode: " + mode);
+        }
+    }
+
+    /*
+     * @param   downloadLocation    string containing the url of the archive
+     * @param   target              where to put the archive on the image, replaced if it exists
+     * @param   expectedSha256      the lower case hex SHA-256 the archive must have, may be null
+     * @param   relay               how to pass the archive on if the image does not fetch it itself
+     * @return  result              how the archive got onto the image, and its SHA-256 if known
+     */
+    public Result transfer(String downloadLocation, Path target, String expectedSha256, Relay relay) throws ResourceUnavailableException {
+        try {
+            if (expectedSha256 != null && copyFromCache(target, expectedSha256)) {
+                logger.info("Archive " + downloadLocation + " copied from the archive cache on the image");
+                return new Result(Strategy.CACHE_HIT, expectedSha256);
+            }
+
+            if (useRemoteFetch(downloadLocation, expectedSha256)) {
+                String sha256 = remoteFetch(downloadLocation, target, expectedSha256);
+                if (sha256 != null) {
+                    addToCache(target, expectedSha256);
+                    logger.info("Archive " + downloadLocation + " fetched by the image");
+                    return new Result(Strategy.REMOTE_FETCH, sha256);
+                }
+                logger.warn("The image was unable to fetch " + downloadLocation + ", relaying it instead");
+            }
+
+            String sha256 = relay.relay(downloadLocation, target, expectedSha256);
+            addToCache(target, expectedSha256);
+            logger.info("Archive " + downloadLocation + " relayed to the image");
+            return new Result(Strategy.LOCAL_RELAY, sha256);
+        } catch (IpNetworkManagerException e) {
+            throw new ResourceUnavailableException("Unable to transfer " + downloadLocation + " to the image", e);
+        }
+    }
+
+    private boolean useRemoteFetch(String downloadLocation, String expectedSha256) throws ResourceUnavailableException, IpNetworkManagerException {
+        if (mode.equals(MODE_LOCAL_RELAY)) {
+            return false;
+        }
+        if (mode.equals(MODE_REMOTE_FETCH)) {
+            return true;
+        }
+        if (expectedSha256 == null) {
+            return false;
+        }
+
+        String host;
+        try {
+            host = new URI(downloadLocation).getHost();
+        } catch (URISyntaxException e) {
+            throw new ResourceUnavailableException("Invalid Download Location: " + downloadLocation, e);
+        }
+
+        Boolean reachable = reachableHosts.get(host);
+        if (reachable == null) {
+            reachable = probe(downloadLocation);
+            reachableHosts.put(host, reachable);
+            logger.info("The image " + (reachable ? "can" : "cannot") + " reach " + host + ", archives from it will be "
+                    + (reachable ? "fetched by the image" : "relayed"));
+        }
+        return reachable;
+    }
+
+    /*
+     * A HEAD request from the image, which has to have curl and get a 2xx or 3xx back
+     */
+    private boolean probe(String downloadLocation) throws IpNetworkManagerException {
+        String response = shell.issueCommand(
+                "if command -v curl > /dev/null; then "
+                + "curl -s -o /dev/null -I -L --max-time 10 -w 'probe-code=%{http_code}\\n' " + quote(downloadLocation) + ";"
+                + "else echo probe-code=none; fi"
+        );
+        String code = getMarker(response, "probe-code");
+        return code != null && (code.startsWith("2") || code.startsWith("3"));
+    }
+
+    /*
+     * @return  sha256  the SHA-256 of the fetched archive, or null if the fetch failed
+     */
+    private String remoteFetch(String downloadLocation, Path target, String expectedSha256) throws IpNetworkManagerException {
+        String response = shell.issueCommand(
+                "mkdir -p " + target.getParent() + ";"
+                + "rm -f " + target + ";"
+                + "curl -fsSL --retry 3 -C - -o " + target + " " + quote(downloadLocation) + ";"
+                + "echo fetch-rc=$?;"
+                + "echo fetch-sha256=$(sha256sum " + target + " 2>/dev/null | cut -d' ' -f1)",
+                600000
+        );
+        if (!"0".equals(getMarker(response, "fetch-rc"))) {
+            logger.trace("Remote fetch of " + downloadLocation + " failed :-\n" + response);
+            return null;
+        }
+
+        String sha256 = getMarker(response, "fetch-sha256");
+        if (sha256 == null || (expectedSha256 != null && !expectedSha256.equals(sha256))) {
+            logger.warn("Checksum mismatch fetching " + downloadLocation + " on the image, expected " + expectedSha256 + " but was " + sha256);
+            shell.issueCommand("rm -f " + target);
+            return null;
+        }
+        return sha256;
+    }
+
+    private boolean copyFromCache(Path target, String sha256) throws IpNetworkManagerException {
+        Path cached = archiveCache.resolve(sha256);
+        String response = shell.issueCommand(
+                "if [ -f " + cached + " ]; then mkdir -p " + target.getParent() + " && cp -f " + cached + " " + target + ";"
+                + "echo cache-rc=$?; else echo cache-rc=miss; fi"
+        );
+        return "0".equals(getMarker(response, "cache-rc"));
+    }
+
+    /*
+     * Hard linked where possible, and renamed into place so a concurrent run never
+     * sees a partial copy
+     */
+    private void addToCache(Path target, String sha256) throws IpNetworkManagerException {
+        if (sha256 == null) {
+            return;
+        }
+        Path cached = archiveCache.resolve(sha256);
+        String response = shell.issueCommand(
+                "mkdir -p " + archiveCache + ";"
+                + "(ln -f " + target + " " + cached + ".$$ 2>/dev/null || cp -f " + target + " " + cached + ".$$)"
+                + " && mv -f " + cached + ".$$ " + cached + ";"
+                + "echo cache-rc=$?"
+        );
+        if (!"0".equals(getMarker(response, "cache-rc"))) {
+            logger.warn("Unable to add " + target + " to the archive cache on the image :-\n" + response);
+        }
+    }
+
+    private String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    private String getMarker(String response, String marker) {
+        Matcher matcher = Pattern.compile("\\Q" + marker + "=\\E(\\S+)").matcher(response);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    public static class Result {
+        private final Strategy strategy;
+        private final String   sha256;
+
+        private Result(Strategy strategy, String sha256) {
+            this.strategy = strategy;
+            this.sha256 = sha256;
+        }
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        /*
+         * @return  sha256  the lower case hex SHA-256 of the archive, or null if it was not worked out
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.compilation;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
+
+/**
+ * An ordered list of edits to build and settings files, applied in memory so
+ * each file is read once and written once however many edits it has.
+ *
+ * The change each edit makes is stored as a diff, under the diff directory at
+ * the path of the file relative to the base directory, e.g.
+ * dev.galasa.simbank.tests/build.gradle/02-update-maven-repo.diff
+ */
+public class BuildFileTransformation {
+
+    /**
+     * An edit to the content of a file
+     */
+    public interface Edit {
+        String apply(String content) throws IOException;
+    }
+
+    private final Log                              logger;
+    private final Path                             baseDirectory;
+    private final Path                             diffDirectory;
+
+    private final LinkedHashMap<Path, List<Stage>> stages = new LinkedHashMap<>();
+
+    /*
+     * @param   baseDirectory   the directory the files are under
+     * @param   diffDirectory   where to store the diffs, usually in the stored artifacts
+     */
+    public BuildFileTransformation(Log logger, Path baseDirectory, Path diffDirectory) {
+        this.logger = logger;
+        this.baseDirectory = baseDirectory;
+        this.diffDirectory = diffDirectory;
+    }
+
+    /*
+     * Add an edit to a file, after the edits already added to it
+     *
+     * @param   file    the file to edit
+     * @param   name    the name of the edit, used in the name of its diff
+     * @param   edit    the edit
+     */
+    public BuildFileTransformation add(Path file, String name, Edit edit) {
+        stages.computeIfAbsent(file, f -> new ArrayList<>()).add(new Stage(name, edit));
+        return this;
+    }
+
+    /*
+     * Apply the edits to each file, and clear them
+     */
+    public void apply() throws IOException {
+        for (Entry<Path, List<Stage>> entry : stages.entrySet()) {
+            Path file = entry.getKey();
+            String relativeName = baseDirectory.relativize(file).toString();
+
+            String original = new String(Files.readAllBytes(file), Charset.defaultCharset());
+            String content = original;
+            int number = 1;
+            for (Stage stage : entry.getValue()) {
+                logger.trace("Applying " + stage.name + " to " + relativeName);
+                String edited = stage.edit.apply(content);
+                if (edited.equals(content)) {
+                    logger.trace(stage.name + " made no change to " + relativeName);
+                } else {
+                    storeDiff(relativeName, String.format("%02d-%s.diff", number, stage.name), content, edited);
+                }
+                content = edited;
+                number++;
+            }
+
+            if (!content.equals(original)) {
+                Files.write(file, content.getBytes());
+            }
+        }
+        stages.clear();
+    }
+
+    private void storeDiff(String relativeName, String diffName, String before, String after) throws IOException {
+        Path diffFile = diffDirectory.resolve(relativeName).resolve(diffName);
+        Files.write(diffFile, diff(relativeName, before, after).getBytes(), new SetContentType(ResultArchiveStoreContentType.TEXT),
+                StandardOpenOption.CREATE);
+    }
+
+    /*
+     * A single hunk diff, covering the lines between the first and last that differ
+     */
+    private String diff(String name, String before, String after) {
+        String[] a = before.split("\n", -1);
+        String[] b = after.split("\n", -1);
+
+        int start = 0;
+        while (start < a.length && start < b.length && a[start].equals(b[start])) {
+            start++;
+        }
+        int endA = a.length;
+        int endB = b.length;
+        while (endA > start && endB > start && a[endA - 1].equals(b[endB - 1])) {
+            endA--;
+            endB--;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("--- a/" + name + "\n");
+        sb.append("+++ b/" + name + "\n");
+        sb.append("@@ -" + (start + 1) + "," + (endA - start) + " +" + (start + 1) + "," + (endB - start) + " @@\n");
+        for (int i = start; i < endA; i++) {
+            sb.append("-" + a[i] + "\n");
+        }
+        for (int i = start; i < endB; i++) {
+            sb.append("+" + b[i] + "\n");
+        }
+        return sb.toString();
+    }
+
+    private static class Stage {
+        private final String name;
+        private final Edit   edit;
+
+        private Stage(String name, Edit edit) {
+            this.name = name;
+            this.edit = edit;
+        }
+    }
+
+}
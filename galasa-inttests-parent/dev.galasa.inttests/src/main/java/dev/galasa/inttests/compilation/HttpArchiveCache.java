@@ -0,0 +1,175 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.compilation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+
+import dev.galasa.framework.spi.ResourceUnavailableException;
+import dev.galasa.http.IHttpClient;
+
+/**
+ * A cache of downloaded archives on the test JVM's file system.
+ * 
+ * Archives are looked up first in an optional pre-seeded mirror directory, laid 
+ * out as host/path (e.g. mirror/github.com/galasa-dev/simplatform/archive/main.zip),
+ * which needs no network at all. Otherwise they are kept in the cache directory 
+ * keyed on their URL, and revalidated with If-None-Match/If-Modified-Since so an 
+ * unchanged archive is not transferred again. If the server cannot be reached, a 
+ * previously cached copy is used.
+ */
+public class HttpArchiveCache {
+    
+    private static final String ETAG          = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    
+    private final IHttpClient   client;
+    private final Log           logger;
+    private final Path          cacheDirectory;
+    private final Path          mirrorDirectory;
+    
+    /*
+     * @param   client              a client used only for archive downloads, its common headers are cleared after each request
+     * @param   mirrorDirectory     pre-seeded archives, may be null
+     */
+    public HttpArchiveCache(IHttpClient client, Log logger, Path cacheDirectory, Path mirrorDirectory) {
+        this.client = client;
+        this.logger = logger;
+        this.cacheDirectory = cacheDirectory;
+        this.mirrorDirectory = mirrorDirectory;
+    }
+    
+    /*
+     * @param   downloadLocation    string containing the url of the resource
+     * @return  archive             a local copy of the resource, not to be altered
+     */
+    public Path retrieve(String downloadLocation) throws ResourceUnavailableException {
+        URI uri;
+        try {
+            uri = new URI(downloadLocation);
+        } catch (URISyntaxException e) {
+            throw new ResourceUnavailableException("Invalid Download Location: " + downloadLocation, e);
+        }
+        
+        if (mirrorDirectory != null) {
+            Path mirrored = mirrorDirectory.resolve(uri.getHost() + uri.getPath());
+            if (Files.isRegularFile(mirrored)) {
+                logger.info("Using mirrored copy of " + downloadLocation + ": " + mirrored.toString());
+                return mirrored;
+            }
+        }
+        
+        try {
+            Files.createDirectories(cacheDirectory);
+            String key = sha256(downloadLocation);
+            Path data = cacheDirectory.resolve(key + ".data");
+            Path metadata = cacheDirectory.resolve(key + ".properties");
+            
+            Properties validators = new Properties();
+            if (Files.isRegularFile(data) && Files.isRegularFile(metadata)) {
+                try (InputStream is = Files.newInputStream(metadata)) {
+                    validators.load(is);
+                }
+            }
+            
+            try {
+                return fetch(uri, data, metadata, validators);
+            } catch (ResourceUnavailableException e) {
+                if (!validators.isEmpty()) {
+                    logger.warn("Unable to revalidate " + downloadLocation + ", using the cached copy", e);
+                    return data;
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new ResourceUnavailableException("Unable to use the archive cache for: " + downloadLocation, e);
+        }
+    }
+    
+    /*
+     * Conditional GET, only replaces the cached copy if the server sends a new one
+     */
+    private Path fetch(URI uri, Path data, Path metadata, Properties validators) throws ResourceUnavailableException, IOException {
+        client.setURI(uri);
+        if (validators.containsKey(ETAG)) {
+            client.addCommonHeader("If-None-Match", validators.getProperty(ETAG));
+        }
+        if (validators.containsKey(LAST_MODIFIED)) {
+            client.addCommonHeader("If-Modified-Since", validators.getProperty(LAST_MODIFIED));
+        }
+        
+        try (CloseableHttpResponse response = client.getFile(uri.getPath())) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_NOT_MODIFIED && !validators.isEmpty()) {
+                logger.info("Cached copy of " + uri.toString() + " is current");
+                return data;
+            }
+            if (status != HttpStatus.SC_OK) {
+                throw new ResourceUnavailableException("Unable to download from: " + uri.toString() + ", status " + status);
+            }
+            
+            Path partial = Files.createTempFile(cacheDirectory, "download", ".partial");
+            try {
+                Files.copy(response.getEntity().getContent(), partial, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(partial, data, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            
+            Properties newValidators = new Properties();
+            newValidators.setProperty("url", uri.toString());
+            copyHeader(response, ETAG, newValidators);
+            copyHeader(response, LAST_MODIFIED, newValidators);
+            try (OutputStream os = Files.newOutputStream(metadata)) {
+                newValidators.store(os, null);
+            }
+            
+            logger.info("Downloaded " + uri.toString() + " into the archive cache");
+            return data;
+        } catch (ResourceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ResourceUnavailableException("Unable to download from: " + uri.toString(), e);
+        } finally {
+            client.clearCommonHeaders();
+        }
+    }
+    
+    private void copyHeader(CloseableHttpResponse response, String name, Properties properties) {
+        Header header = response.getFirstHeader(name);
+        if (header != null) {
+            properties.setProperty(name, header.getValue());
+        }
+    }
+    
+    private String sha256(String value) throws IOException {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 is not available", e);
+        }
+    }
+
+}
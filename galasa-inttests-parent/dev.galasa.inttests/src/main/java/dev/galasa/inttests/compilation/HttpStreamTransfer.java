@@ -0,0 +1,206 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.compilation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+
+import dev.galasa.framework.spi.ResourceUnavailableException;
+import dev.galasa.http.IHttpClient;
+
+/**
+ * Streams a HTTP download straight into a path, usually on the file system of
+ * a Linux image, without buffering it in a local file first.
+ *
+ * The SHA-256 is worked out as the bytes go past, and checked against the
+ * expected checksum when there is one. If the connection closes early the
+ * download is resumed with a range request from the last byte written, or
+ * started again if the server does not support ranges or sends a range that
+ * does not start there.
+ */
+public class HttpStreamTransfer {
+
+    private static final int    MAX_RESUMES = 3;
+    private static final int    BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("^\\s*bytes\\s+(\\d+)-");
+
+    private final IHttpClient   client;
+    private final Log           logger;
+
+    /*
+     * @param   client  a client used only for archive downloads, its common headers are cleared after each request
+     */
+    public HttpStreamTransfer(IHttpClient client, Log logger) {
+        this.client = client;
+        this.logger = logger;
+    }
+
+    /*
+     * @param   downloadLocation    string containing the url of the resource
+     * @param   target              where to write the resource, replaced if it exists
+     * @param   expectedSha256      the lower case hex SHA-256 the resource must have, may be null
+     * @return  sha256              the lower case hex SHA-256 of the resource
+     */
+    public String transfer(String downloadLocation, Path target, String expectedSha256) throws ResourceUnavailableException {
+        URI uri;
+        try {
+            uri = new URI(downloadLocation);
+        } catch (URISyntaxException e) {
+            throw new ResourceUnavailableException("Invalid Download Location: " + downloadLocation, e);
+        }
+
+        Progress progress;
+        try {
+            progress = new Progress(MessageDigest.getInstance("SHA-256"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new ResourceUnavailableException("SHA-256 is not available", e);
+        }
+
+        for (int attempt = 0;; attempt++) {
+            try {
+                if (fetch(uri, target, progress)) {
+                    break;
+                }
+            } catch (ConnectionClosedException e) {
+                if (attempt >= MAX_RESUMES) {
+                    logger.error("Transfer connection closed early, usually caused by network instability, marking as resource unavailable so can try again later",e);
+                    throw new ResourceUnavailableException("Network error downloading from: " + uri.toString(), e);
+                }
+                logger.warn("Transfer connection closed early after " + progress.written + " bytes, resuming download from: " + uri.toString());
+                if (getSize(target) != progress.written) {
+                    // *** The digest has to match what actually reached the target, so start again
+                    progress.reset();
+                }
+            } catch (ResourceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ResourceUnavailableException("Unable to download from: " + uri.toString(), e);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : progress.digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        String sha256 = sb.toString();
+
+        if (expectedSha256 != null && !expectedSha256.equals(sha256)) {
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException e) {
+                logger.warn("Unable to delete the download with a checksum mismatch: " + target.toString(), e);
+            }
+            throw new ResourceUnavailableException("Checksum mismatch downloading from: " + uri.toString() + ", expected " + expectedSha256 + " but was " + sha256);
+        }
+
+        logger.trace("Streamed " + progress.written + " bytes from " + uri.toString() + " to " + target.toString());
+        return sha256;
+    }
+
+    /*
+     * One request, resuming after the bytes already written if there are any
+     *
+     * @return  complete    false if the resumed range was unusable and the download has to start again
+     */
+    private boolean fetch(URI uri, Path target, Progress progress) throws Exception {
+        client.setURI(uri);
+        boolean resuming = progress.written > 0;
+        if (resuming) {
+            client.addCommonHeader("Range", "bytes=" + progress.written + "-");
+        }
+
+        try (CloseableHttpResponse response = client.getFile(uri.getPath())) {
+            int status = response.getStatusLine().getStatusCode();
+            OutputStream os;
+            if (resuming && status == HttpStatus.SC_PARTIAL_CONTENT) {
+                long rangeStart = getRangeStart(response);
+                if (rangeStart != progress.written) {
+                    logger.warn("Resumed download from " + uri.toString() + " starts at byte " + rangeStart + " rather than "
+                            + progress.written + ", restarting download");
+                    progress.reset();
+                    return false;
+                }
+                os = Files.newOutputStream(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } else if (status == HttpStatus.SC_OK) {
+                if (resuming) {
+                    logger.trace("Range requests not supported, restarting download from: " + uri.toString());
+                }
+                progress.reset();
+                os = Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            } else {
+                throw new ResourceUnavailableException("Unable to download from: " + uri.toString() + ", status " + status);
+            }
+
+            try (InputStream is = response.getEntity().getContent(); OutputStream out = os) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int length;
+                while ((length = is.read(buffer)) != -1) {
+                    out.write(buffer, 0, length);
+                    progress.digest.update(buffer, 0, length);
+                    progress.written += length;
+                }
+            }
+            return true;
+        } finally {
+            client.clearCommonHeaders();
+        }
+    }
+
+    /*
+     * @return  start   the first byte of a 206 response, from its Content-Range, or -1 if it has none
+     */
+    private long getRangeStart(CloseableHttpResponse response) {
+        Header header = response.getFirstHeader("Content-Range");
+        if (header == null) {
+            return -1;
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(header.getValue());
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private long getSize(Path target) {
+        try {
+            return Files.size(target);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /*
+     * The bytes written to the target so far, and the digest of them
+     */
+    private static class Progress {
+        private final MessageDigest digest;
+        private long                written;
+
+        private Progress(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        private void reset() {
+            digest.reset();
+            written = 0;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.compilation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.ipnetwork.IpNetworkManagerException;
+
+/**
+ * Collects file system operations on a Linux image and runs them as one
+ * script, in a single round trip to the image.
+ *
+ * The operations run in the order they were added and stop at the first that
+ * fails. The return code of each is echoed back and checked, so a failure
+ * reports the operation that failed rather than just the script.
+ */
+public class RemoteOperationBatch {
+
+    private static final Pattern    RC_PATTERN = Pattern.compile("op-(\\d+)-rc=(\\d+)");
+
+    private final ICommandShell     shell;
+    private final Log               logger;
+
+    private final ArrayList<String> descriptions = new ArrayList<>();
+    private final ArrayList<String> commands     = new ArrayList<>();
+
+    public RemoteOperationBatch(ICommandShell shell, Log logger) {
+        this.shell = shell;
+        this.logger = logger;
+    }
+
+    /*
+     * Create a directory, and any missing parents
+     */
+    public RemoteOperationBatch mkdir(Path target) {
+        return add("mkdir " + target, "mkdir -p " + quote(target));
+    }
+
+    /*
+     * Move a file or directory, into the target if it is an existing directory
+     */
+    public RemoteOperationBatch move(Path source, Path target) {
+        return add("move " + source + " to " + target, "mv " + quote(source) + " " + quote(target));
+    }
+
+    /*
+     * Rename a file, failing if the target already exists
+     */
+    public RemoteOperationBatch rename(Path source, Path target) {
+        return add("rename " + source + " to " + target, "[ ! -e " + quote(target) + " ] && mv " + quote(source) + " " + quote(target));
+    }
+
+    /*
+     * Unpack a zip archive into a directory
+     */
+    public RemoteOperationBatch unzip(Path archive, Path target) {
+        return add("unzip " + archive + " to " + target, "unzip -q " + quote(archive) + " -d " + quote(target));
+    }
+
+    private RemoteOperationBatch add(String description, String command) {
+        descriptions.add(description);
+        commands.add(command);
+        return this;
+    }
+
+    /*
+     * Run the operations added so far, and clear them
+     *
+     * @throws  IOException     if an operation failed, or did not run
+     */
+    public void execute() throws IOException, IpNetworkManagerException {
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        // *** A subshell, so stopping at a failure does not end the shell session
+        StringBuilder script = new StringBuilder("(");
+        for (int i = 0; i < commands.size(); i++) {
+            script.append(commands.get(i));
+            script.append(";RC=$?;echo op-" + i + "-rc=$RC;[ $RC -eq 0 ] || exit $RC;");
+        }
+        script.append(")");
+
+        logger.info("issuing " + commands.size() + " operations in one command: " + script.toString());
+        String response = shell.issueCommand(script.toString());
+
+        int succeeded = 0;
+        Matcher matcher = RC_PATTERN.matcher(response);
+        while (matcher.find()) {
+            int op = Integer.parseInt(matcher.group(1));
+            if (!"0".equals(matcher.group(2))) {
+                throw new IOException("Unable to " + descriptions.get(op) + ", RC=" + matcher.group(2) + " :-\n" + response);
+            }
+            succeeded++;
+        }
+        if (succeeded != commands.size()) {
+            throw new IOException("Only " + succeeded + " of " + commands.size() + " operations ran :-\n" + response);
+        }
+
+        descriptions.clear();
+        commands.clear();
+    }
+
+    private String quote(Path path) {
+        return "'" + path.toString().replace("'", "'\\''") + "'";
+    }
+
+}
@@ -5,14 +5,14 @@
  */
 package dev.galasa.inttests.compilation.simbank;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import dev.galasa.framework.spi.ResourceUnavailableException;
 import dev.galasa.inttests.compilation.AbstractCompilationLocal;
+import dev.galasa.inttests.compilation.BuildFileTransformation;
+import dev.galasa.inttests.compilation.RemoteOperationBatch;
 import dev.galasa.ipnetwork.IpNetworkManagerException;
 import dev.galasa.linux.LinuxManagerException;
 
@@ -35,23 +35,22 @@ public abstract class AbstractCompilationLocalSimBank extends AbstractCompilatio
      * 
      */
     private Path setupSimPlatform() throws ResourceUnavailableException, IOException, LinuxManagerException, IpNetworkManagerException {
-        logger.info("Downloading simplatform repository archive - main branch.");
-        Path localArchive = downloadHttp("https://github.com/galasa-dev/simplatform/archive/main.zip");
-        
-        logger.info("Uploading simplatform repository archive to image");
+        logger.info("Transferring simplatform repository archive to image - main branch.");
         Path remoteArchive = testRunDirectory.resolve("simplatformArchive");
         Files.createDirectories(testRunDirectory);
 
         Path remoteUnpacked = testRunDirectory.resolve("simplatformUnpacked");
-        Files.copy(localArchive, remoteArchive);
+        // *** Always relayed, main.zip has no fixed checksum, so only the archive cache and
+        // *** mirror on the test JVM can avoid downloading it again
+        uploadCachedArchive("https://github.com/galasa-dev/simplatform/archive/main.zip", remoteArchive);
         
-        logger.info("Unzipping simplatform repository archive");
-        unpackOnRemote(remoteArchive, remoteUnpacked);
-        
-        logger.info("Setting up repository");
+        logger.info("Unzipping simplatform repository archive and setting up repository");
         Path simplatformParent = testRunDirectory.resolve("simplatform");
-        Files.createDirectories(simplatformParent);
-        structureSimplatform(remoteUnpacked, simplatformParent);
+        RemoteOperationBatch batch = new RemoteOperationBatch(getLinuxImage().getCommandShell(), logger);
+        batch.unzip(remoteArchive, remoteUnpacked);
+        batch.mkdir(simplatformParent);
+        structureSimplatform(batch, remoteUnpacked, simplatformParent);
+        batch.execute();
         createParentSettings(simplatformParent);
         createGradleProperties(simplatformParent);
         logger.trace("Successfully created gradle.properties");
@@ -65,6 +64,21 @@ public abstract class AbstractCompilationLocalSimBank extends AbstractCompilatio
         return simplatformParent;
     }
 
+    /*
+     * Relays an archive from the archive cache on the test JVM, so a mirrored or 
+     * unchanged archive is not downloaded again.
+     */
+    private void uploadCachedArchive(String downloadLocation, Path target) throws ResourceUnavailableException {
+        Path localArchive = downloadHttpCached(downloadLocation);
+        
+        logger.info("Uploading archive to image: " + downloadLocation);
+        try {
+            Files.copy(localArchive, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ResourceUnavailableException("Unable to upload " + downloadLocation + " to the image", e);
+        }
+    }
+
     private void outputFiles(String prefix, Path simplatformParent, boolean example) throws IOException {
         
         String ex = "";
@@ -92,38 +106,46 @@ public abstract class AbstractCompilationLocalSimBank extends AbstractCompilatio
      */
     protected void refactorSimplatform(Path simplatformParent) throws IOException {
         renameFiles(simplatformParent);
-        changeAllPrefixes(simplatformParent);
+        
+        BuildFileTransformation transformation = newTransformation();
+        changeAllPrefixes(transformation, simplatformParent);
+        transformation.apply();
+    }
+    
+    /*
+     * @return  transformation  An empty transformation of the simplatform build files, with the diff of each edit stored under simplatform-transformation
+     */
+    protected BuildFileTransformation newTransformation() {
+        return new BuildFileTransformation(logger, testRunDirectory.resolve("simplatform"), storedArtifactRoot.resolve("simplatform-transformation"));
     }
     
     /*
-     * Retrieves the necessary source files from the unpacked simplatform archive and 
-     * structures them in a parent directory, along with a parent settings file.
+     * Adds the moves to a batch that retrieve the necessary source files from the unpacked 
+     * simplatform archive and structure them in a parent directory.
      * 
+     * @param   batch           The batch of operations on the image to add to
      * @param   unpackedDir     The directory containing he unpackaged simplatform archive  
-     * @return  parentDir       The parent directory of the newly structured simplatform parent project
+     * @param   parentDir       The parent directory of the newly structured simplatform parent project
      * 
      */
-    private void structureSimplatform(Path unpackedDir, Path simplatformParent) throws IOException, IpNetworkManagerException, LinuxManagerException {
-        // Create new (temp) directory
-        logger.trace("Creating project parent directory (for manager and tests)");
-        
+    private void structureSimplatform(RemoteOperationBatch batch, Path unpackedDir, Path simplatformParent) {
         // Get Manager Files
-        logger.trace("Copying managers source into parent directory");
-        moveFilesOnRemote(
+        logger.trace("Moving managers source into parent directory");
+        batch.move(
                 unpackedDir.resolve("simplatform-main/galasa-simbank-tests/" + managerProjectName),
                 simplatformParent.resolve(managerProjectName)
             );
         
         // Get Tests
-        logger.trace("Copying tests source into parent directory");
-        moveFilesOnRemote(
+        logger.trace("Moving tests source into parent directory");
+        batch.move(
                 unpackedDir.resolve("simplatform-main/galasa-simbank-tests/" + testProjectName), 
                 simplatformParent.resolve(testProjectName)
             );    
         
         // Create an empty gradle home folder, so we can add a properties files to it to control the build.
         logger.trace("Creating an empty .gradle in the parent directory so we have a home for gradle properties.");
-        mkdirOnRemote( simplatformParent.resolve(".gradle") );    
+        batch.mkdir( simplatformParent.resolve(".gradle") );    
     }
 
     /*
@@ -146,26 +168,6 @@ public abstract class AbstractCompilationLocalSimBank extends AbstractCompilatio
         Files.write(parentSettingsFile, settingsSB.toString().getBytes());
     }
     
-    /*
-     * Moves file (source) to target.
-     * 
-     * @param    source    Path: The file to be moved
-     * @param    target    Path: The location to be moved to
-     */
-    private void moveFilesOnRemote(Path source, Path target) throws IpNetworkManagerException, LinuxManagerException {
-        String command = "mv " + source.toString() + " " + target.toString() + "; echo RC=$?";
-        logger.info("issuing command: " + command);
-        String rc = getLinuxImage().getCommandShell().issueCommand(command);
-        assertThat(rc).isEqualToIgnoringWhitespace("RC=0");
-    }
-
-    private void mkdirOnRemote(Path target) throws IpNetworkManagerException, LinuxManagerException {
-        String command = "mkdir -p " + target.toString() + "; echo RC=$?";
-        logger.info("issuing command: " + command);
-        String rc = getLinuxImage().getCommandShell().issueCommand(command);
-        assertThat(rc).isEqualToIgnoringWhitespace("RC=0");
-    }
-    
     /*
      * Renames the example files with names that Gradle will recognise.
      * 
@@ -176,44 +178,56 @@ public abstract class AbstractCompilationLocalSimBank extends AbstractCompilatio
         Path managerDir = simplatformParent.resolve(managerProjectName);
         Path testDir = simplatformParent.resolve(testProjectName);
         
+        RemoteOperationBatch batch;
+        try {
+            batch = new RemoteOperationBatch(getLinuxImage().getCommandShell(), logger);
+        } catch (LinuxManagerException e) {
+            throw new IOException("Unable to access the linux image", e);
+        }
+        
         // Managers
-        Files.move(managerDir.resolve("settings-example.gradle"), managerDir.resolve("settings.gradle"));        
-        Files.move(managerDir.resolve("build-example.gradle"), managerDir.resolve("build.gradle"));
-        Files.move(managerDir.resolve("bnd-example.bnd"), managerDir.resolve("bnd.bnd"));
+        batch.rename(managerDir.resolve("settings-example.gradle"), managerDir.resolve("settings.gradle"));        
+        batch.rename(managerDir.resolve("build-example.gradle"), managerDir.resolve("build.gradle"));
+        batch.rename(managerDir.resolve("bnd-example.bnd"), managerDir.resolve("bnd.bnd"));
         
         // Tests
-        Files.move(testDir.resolve("settings-example.gradle"), testDir.resolve("settings.gradle"));        
-        Files.move(testDir.resolve("build-example.gradle"), testDir.resolve("build.gradle"));
-        Files.move(testDir.resolve("bnd-example.bnd"), testDir.resolve("bnd.bnd"));
-        
+        batch.rename(testDir.resolve("settings-example.gradle"), testDir.resolve("settings.gradle"));        
+        batch.rename(testDir.resolve("build-example.gradle"), testDir.resolve("build.gradle"));
+        batch.rename(testDir.resolve("bnd-example.bnd"), testDir.resolve("bnd.bnd"));
+        
+        try {
+            batch.execute();
+        } catch (IpNetworkManagerException e) {
+            throw new IOException("Unable to rename the example files", e);
+        }
     }
     
     /*
-     * Renames the prefix placeholders within the build and settings files of the 
-     * manager and test projects.
+     * Adds the renaming of the prefix placeholders within the build and settings files of the 
+     * manager and test projects to a transformation.
      * 
+     * @param   transformation      The transformation of the build files
      * @param   simplatformParent   The directory of the simplatform project
      */
-    protected void changeAllPrefixes(Path simplatformParent) throws IOException {
+    protected void changeAllPrefixes(BuildFileTransformation transformation, Path simplatformParent) {
         // Manager
-        changePrefix(simplatformParent.resolve(managerProjectName + "/build.gradle"));
-        changePrefix(simplatformParent.resolve(managerProjectName + "/settings.gradle"));
+        transformation.add(simplatformParent.resolve(managerProjectName + "/build.gradle"), "change-prefix", this::changePrefix);
+        transformation.add(simplatformParent.resolve(managerProjectName + "/settings.gradle"), "change-prefix", this::changePrefix);
         // Tests
-        changePrefix(simplatformParent.resolve(testProjectName + "/build.gradle"));
-        changePrefix(simplatformParent.resolve(testProjectName + "/settings.gradle"));
+        transformation.add(simplatformParent.resolve(testProjectName + "/build.gradle"), "change-prefix", this::changePrefix);
+        transformation.add(simplatformParent.resolve(testProjectName + "/settings.gradle"), "change-prefix", this::changePrefix);
     }
     
     /*
-     * Renames the prefix placeholders within the specified file
+     * Renames the prefix placeholders within the content of a file
      * 
-     * @param   file   The file in which the prefix will be changed.
+     * @param   fileData   The content of the file in which the prefix will be changed.
+     * @return  fileData   The changed content
      */
-    private void changePrefix(Path file) throws IOException {
+    protected String changePrefix(String fileData) {
         String incumbent = "%%prefix%%";
-        String fileData = new String(Files.readAllBytes(file), Charset.defaultCharset());
-        fileData = fileData.replace(incumbent, prefix);
-        Files.write(file, fileData.getBytes());
-        logger.trace("Changing prefix (" + incumbent + ") to \"" + prefix + "\" in file: " + file.toString());
+        logger.trace("Changing prefix (" + incumbent + ") to \"" + prefix + "\"");
+        return fileData.replace(incumbent, prefix);
     }
     
     /*
@@ -6,70 +6,71 @@
 package dev.galasa.inttests.compilation.simbank;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import dev.galasa.galasaecosystem.ILocalEcosystem;
+import dev.galasa.inttests.compilation.BuildFileTransformation;
 
 public abstract class AbstractCompilationLocalSimBankOffline extends AbstractCompilationLocalSimBank {
     
     @Override
     protected void refactorSimplatform(Path simplatformParent) throws IOException {
         renameFiles(simplatformParent);
-        changeAllPrefixes(simplatformParent);
         
         Path managerBuildGradle = simplatformParent.resolve("dev.galasa.simbank.manager/build.gradle");
         Path testBuildGradle = simplatformParent.resolve("dev.galasa.simbank.tests/build.gradle");
         Path parentSettings = simplatformParent.resolve("settings.gradle");
         
+        // Each file is read and written once, with all of its edits applied in memory
+        BuildFileTransformation transformation = newTransformation();
+        changeAllPrefixes(transformation, simplatformParent);
+        
         // Alter project parent
-        addPluginManagementRepo(parentSettings);
+        transformation.add(parentSettings, "add-plugin-management-repo", this::addPluginManagementRepo);
         
         // Alter manager project
-        updateMavenRepo(managerBuildGradle); 
-        addDependencyConstraints(managerBuildGradle);
+        transformation.add(managerBuildGradle, "update-maven-repo", this::updateMavenRepo); 
+        transformation.add(managerBuildGradle, "add-dependency-constraints", this::addDependencyConstraints);
         
         // Alter test project
-        updateMavenRepo(testBuildGradle);
+        transformation.add(testBuildGradle, "update-maven-repo", this::updateMavenRepo);
         // Add a list of managers to the test(s)
-        addDependencyConstraints(testBuildGradle);
-        addImplementationConstraints(testBuildGradle);
+        transformation.add(testBuildGradle, "add-dependency-constraints", this::addDependencyConstraints);
+        transformation.add(testBuildGradle, "add-implementation-constraints", this::addImplementationConstraints);
+        
+        transformation.apply();
     }
     
     /*
      * For use when changing source code to work with the isolated zip (either mvp or full).
-     * Specify a file to work against. This method will take the contents of that file, and 
-     * replace occurrences of mavenCentral() with the appropriate local maven repository closure.
+     * This method will take the contents of a file, and replace occurrences of 
+     * mavenCentral() with the appropriate local maven repository closure.
      * 
-     * @param fileToChange the path to the file that needs updating
+     * @param fileData the content of the file that needs updating
+     * @return the updated content
      */
-    protected void updateMavenRepo(Path fileToChange) throws IOException {
-        String fileData = new String(Files.readAllBytes(fileToChange), Charset.defaultCharset());
-        logger.info("Replacing occurences of mavenCentral() with a link to the unzipped archive in file: "
-                + fileToChange.getName(fileToChange.getNameCount()-2) + "/" + fileToChange.getFileName());
-        fileData = fileData.replace("mavenCentral()",
+    protected String updateMavenRepo(String fileData) {
+        logger.info("Replacing occurences of mavenCentral() with a link to the unzipped archive");
+        return fileData.replace("mavenCentral()",
                 "maven {\n" +
                 "        url=\"file://" + ((ILocalEcosystem) getEcosystem()).getIsolatedDirectory() + "/maven\"\n" + 
                 "    }"
                 );
-        Files.write(fileToChange, fileData.getBytes());
     }
     
     /*
      * For use when changing source code to work with the isolated zip (either mvp or full).
-     * Specify a file to work against. This method will take insert a pluginManagement closure at 
-     * the beginning of that file. 
+     * This method will insert a pluginManagement closure at the beginning of the content 
+     * of a settings file. 
      * 
-     * @param gradleSettingsFile the path to the file that needs updating
+     * @param fileData the content of the file that needs updating
+     * @return the updated content
      */
-    protected void addPluginManagementRepo (Path gradleSettingsFile) throws IOException {
-        logger.info("Adding pluginManagement closure to: " 
-                + gradleSettingsFile.getName(gradleSettingsFile.getNameCount()-2) + "/" + gradleSettingsFile.getFileName());
+    protected String addPluginManagementRepo(String fileData) {
+        logger.info("Adding pluginManagement closure");
         
-        String fileData = new String(Files.readAllBytes(gradleSettingsFile), Charset.defaultCharset());
         String pluginClosure = "pluginManagement {\n" + 
             "    repositories {\n" + 
             "        maven {\n" + 
@@ -77,23 +78,22 @@ public abstract class AbstractCompilationLocalSimBankOffline extends AbstractCom
             "        }\n" + 
             "    }\n" + 
             "}\n\n";
-        Files.write(gradleSettingsFile, (pluginClosure.concat(fileData)).getBytes());
+        return pluginClosure.concat(fileData);
     }
     
     /*
      * For use when changing source code to work with the isolated zip (either mvp or full).
-     * Specify a file to work against. This method will take insert a constraints closure within 
-     * the dependencies closure of that file. 
+     * This method will insert a constraints closure within the dependencies closure of the 
+     * content of a build file. 
      * 
      * NOTE: enforces explicit versions of commons-coden and httpcore
      * 
-     * @param fileToChange the path to the file that needs updating
+     * @param fileData the content of the file that needs updating
+     * @return the updated content
      */
-    protected void addDependencyConstraints(Path fileToChange) throws IOException {
-        logger.info("Adding constraints (for http packages) to: " 
-                + fileToChange.getName(fileToChange.getNameCount()-2) + "/" + fileToChange.getFileName());
+    protected String addDependencyConstraints(String fileData) throws IOException {
+        logger.info("Adding constraints (for http packages)");
         
-        String fileData = new String(Files.readAllBytes(fileToChange), Charset.defaultCharset());
         String constraints = 
             "    constraints {\n" + 
             "        implementation('commons-codec:commons-codec:1.15'){\n" + 
@@ -116,23 +116,19 @@ public abstract class AbstractCompilationLocalSimBankOffline extends AbstractCom
 			throw new IOException("Match not found: " + regex + " => " + fileData);
 		}
         // Insert the constraints closure between match 1 (dependencies) and match 2 (closing brace)
-        fileData = fileData.replace(matcher.group(0), matcher.group(1) + constraints + matcher.group(2));
-        
-        Files.write(fileToChange, fileData.getBytes());
+        return fileData.replace(matcher.group(0), matcher.group(1) + constraints + matcher.group(2));
     }
     
     /*
      * For use when changing source code to work with the isolated zip (either mvp or full).
-     * Specify a file to work against. This method will alter the selenium manager depedency
+     * This method will alter the selenium manager depedency in the content of a build file
      * to exclude several unnecessary packages that aren't available in the zip.
      * 
-     * @param fileToChange the path to the file that needs updating
+     * @param fileData the content of the file that needs updating
+     * @return the updated content
      */
-    protected void addImplementationConstraints(Path fileToChange) throws IOException {
-        logger.info("Adding constraints (for selenium manager) to: " 
-                + fileToChange.getName(fileToChange.getNameCount()-2) + "/" + fileToChange.getFileName());
-        
-        String fileData = new String(Files.readAllBytes(fileToChange), Charset.defaultCharset());
+    protected String addImplementationConstraints(String fileData) throws IOException {
+        logger.info("Adding constraints (for selenium manager)");
           
         String constraints = 
             "    implementation('dev.galasa:dev.galasa.selenium.manager:0.+'){\n" + 
@@ -149,11 +145,11 @@ public abstract class AbstractCompilationLocalSimBankOffline extends AbstractCom
         String regex = "implementation\\s\\'dev\\.galasa\\:dev\\.galasa\\.selenium\\.manager\\:0\\.\\+\\'";
         Pattern pattern = Pattern.compile(regex, Pattern.MULTILINE);
         Matcher matcher = pattern.matcher(fileData);
-        matcher.find();
+        if (!matcher.find()) {
+            throw new IOException("Match not found: " + regex + " => " + fileData);
+        }
         // Insert the constraints closure between match 1 (dependencies) and match 2 (closing brace)
-        fileData = fileData.replace(matcher.group(0), constraints);
-        
-        Files.write(fileToChange, fileData.getBytes());
+        return fileData.replace(matcher.group(0), constraints);
     }
 
 }
@@ -5,33 +5,16 @@
  */
 package dev.galasa.inttests.core;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.Test;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
-public abstract class AbstractCoreLocal {
+public abstract class AbstractCoreLocal extends AbstractEcosystemTest {
     
     @Test
     public void testCoreIvtTest() throws Exception {
         
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.core.manager.ivt", 
-                "dev.galasa.core.manager.ivt.CoreManagerIVT", 
-                null, 
-                null, 
-                null,
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.core.manager.ivt", "dev.galasa.core.manager.ivt.CoreManagerIVT");
     }
 
     abstract protected IGenericEcosystem getEcosystem();
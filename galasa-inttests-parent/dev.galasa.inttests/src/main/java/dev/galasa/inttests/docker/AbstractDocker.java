@@ -5,23 +5,13 @@
  */
 package dev.galasa.inttests.docker;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import org.apache.commons.logging.Log;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.BeforeClass;
-import dev.galasa.Test;
-import dev.galasa.core.manager.Logger;
-import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 import dev.galasa.ipnetwork.ICommandShell;
 import dev.galasa.linux.ILinuxImage;
 
-public abstract class AbstractDocker {
+public abstract class AbstractDocker extends AbstractEcosystemTest {
 	
-	@Logger
-	public Log logger;
 	protected ICommandShell shell;
 	
 	final static String DOCKER_PORT = "2376";
@@ -42,28 +32,5 @@ public abstract class AbstractDocker {
 		getEcosystem().setCpsProperty("docker.registry.PROXY.image.prefix", "docker_proxy_cache");
 	}
 	
-	@Test
-	public void testDockerIvtTest() throws Exception {
-		
-		String runName = getEcosystem().submitRun(null,
-				null,
-				null,
-				"dev.galasa.docker.manager.ivt", 
-                "dev.galasa.docker.manager.ivt.DockerManagerIVT", 
-                null, 
-                null, 
-                null, 
-                null);
-		
-		
-		JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
-	}
-	
-	abstract protected IGenericEcosystem getEcosystem() throws Exception;
-	
 	abstract protected ILinuxImage getDockerLinuxImage() throws Exception;
 }
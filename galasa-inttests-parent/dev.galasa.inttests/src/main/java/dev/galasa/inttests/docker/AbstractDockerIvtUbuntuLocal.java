@@ -0,0 +1,21 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.docker;
+
+import dev.galasa.Test;
+
+/**
+ * Runs the DockerManagerIVT against the Docker engine set up by
+ * AbstractDockerUbuntuLocal.
+ */
+public abstract class AbstractDockerIvtUbuntuLocal extends AbstractDockerUbuntuLocal {
+	
+	@Test
+	public void testDockerIvtTest() throws Exception {
+		
+		runIvt("dev.galasa.docker.manager.ivt", "dev.galasa.docker.manager.ivt.DockerManagerIVT");
+	}
+}
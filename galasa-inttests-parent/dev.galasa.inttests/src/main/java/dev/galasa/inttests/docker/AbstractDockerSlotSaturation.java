@@ -0,0 +1,207 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.docker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
+import dev.galasa.Test;
+import dev.galasa.core.manager.TestProperty;
+import dev.galasa.inttests.DockerContainerClient;
+import dev.galasa.inttests.DockerContainerClient.ContainerEvent;
+import dev.galasa.inttests.TimedEcosystemRuns;
+
+/**
+ * Sweeps the slot count of the Docker engine, submitting more DockerManagerIVT
+ * runs than there are slots at each count, to show how the engine behaves
+ * when the runs have to queue for slots.
+ *
+ * For each slot count it reports :-
+ *
+ * queued to first method - from a run being queued to its first test method starting, framework startup included
+ * slot wait              - how much longer each run took to reach its first test method than the fastest run at
+ *                          that slot count, which found a slot free, so framework startup is left out
+ * slot hand-off          - from a container being destroyed on a full engine to the next container being created
+ * container start        - from a container being created to it starting
+ *
+ * The results are stored as docker/slot-saturation.json.
+ */
+public abstract class AbstractDockerSlotSaturation extends AbstractDockerUbuntuLocal {
+
+	private static final String DEFAULT_SLOT_COUNTS  = "1,2,3";
+	private static final int    DEFAULT_RUNS_PER_SLOT = 2;
+
+	// The slot counts to sweep, comma separated
+	@TestProperty(prefix = "docker.slot.sweep",suffix = "counts", required = false)
+	public String slotCounts;
+
+	// How many runs to submit for each slot
+	@TestProperty(prefix = "docker.slot.sweep",suffix = "runs.per.slot", required = false)
+	public String runsPerSlot;
+
+	@Test
+	public void testDockerSlotSaturation() throws Exception {
+		int perSlot = DEFAULT_RUNS_PER_SLOT;
+		if (runsPerSlot != null && !runsPerSlot.trim().isEmpty()) {
+			perSlot = Integer.parseInt(runsPerSlot.trim());
+		}
+		String counts = slotCounts == null || slotCounts.trim().isEmpty() ? DEFAULT_SLOT_COUNTS : slotCounts.trim();
+
+		DockerContainerClient dockerClient = new DockerContainerClient(shell, logger, "sudo docker");
+
+		JsonArray sweep = new JsonArray();
+		ArrayList<String> failures = new ArrayList<>();
+		try {
+			for (String count : counts.split(",")) {
+				int slots = Integer.parseInt(count.trim());
+				sweep.add(runAtSlotCount(dockerClient, slots, slots * perSlot + 1, failures));
+			}
+		} finally {
+			getEcosystem().setCpsProperty("docker.engine.DKRTESTENGINE.max.slots", "3");
+		}
+
+		String json = new GsonBuilder().setPrettyPrinting().create().toJson(sweep);
+		logger.info("Docker slot saturation :-\n" + json);
+		try {
+			Files.write(storedArtifactRoot.resolve("docker").resolve("slot-saturation.json"), json.getBytes(StandardCharsets.UTF_8),
+					new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
+		} catch (IOException e) {
+			logger.warn("Unable to store the slot saturation results", e);
+		}
+
+		assertThat(failures).describedAs("The DockerManagerIVT runs that did not pass").isEmpty();
+	}
+
+	private JsonObject runAtSlotCount(DockerContainerClient dockerClient, int slots, int runCount, List<String> failures) throws Exception {
+		logger.info("Running " + runCount + " DockerManagerIVT runs with " + slots + " slots");
+		getEcosystem().setCpsProperty("docker.engine.DKRTESTENGINE.max.slots", Integer.toString(slots));
+
+		TimedEcosystemRuns runs = newTimedRuns();
+
+		// *** Containers already on the engine hold slots too, so the replay starts from them
+		int existing = dockerClient.getContainerCount();
+		Instant since = dockerClient.getHostTime();
+		Instant start = Instant.now();
+
+		ArrayList<String> runNames = new ArrayList<>();
+		for (int i = 0; i < runCount; i++) {
+			runNames.add(runs.submitRun(null,
+					null,
+					null,
+					"dev.galasa.docker.manager.ivt",
+					"dev.galasa.docker.manager.ivt.DockerManagerIVT",
+					null,
+					null,
+					null,
+					null));
+		}
+
+		ArrayList<Long> toFirstMethods = new ArrayList<>();
+		for (String runName : runNames) {
+			JsonObject run = runs.waitForRun(runName);
+			String result = run.has("result") ? run.get("result").getAsString() : "unknown";
+			if (!"Passed".equals(result)) {
+				failures.add(runName + " with " + slots + " slots " + result);
+			}
+
+			Duration queued = runs.getPhases(runName).get("queued");
+			Duration startup = runs.getPhases(runName).get("startup");
+			if (queued != null && startup != null) {
+				toFirstMethods.add(queued.plus(startup).toMillis());
+			}
+		}
+		Duration elapsed = Duration.between(start, Instant.now());
+
+		// *** The fastest run had a slot straight away, the rest of the others' time was spent waiting for one
+		ArrayList<Long> slotWaits = new ArrayList<>();
+		if (!toFirstMethods.isEmpty()) {
+			long fastest = Collections.min(toFirstMethods);
+			for (long toFirstMethod : toFirstMethods) {
+				slotWaits.add(toFirstMethod - fastest);
+			}
+		}
+
+		List<ContainerEvent> events = dockerClient.getContainerEvents(since, dockerClient.getHostTime());
+
+		// *** Replay the events to find when the engine was full and how quickly freed slots were reused
+		ArrayList<Long> handOffs = new ArrayList<>();
+		ArrayList<Long> containerStarts = new ArrayList<>();
+		HashMap<String, Instant> created = new HashMap<>();
+		int live = existing;
+		Instant freedAt = null;
+		for (ContainerEvent event : events) {
+			switch (event.getAction()) {
+				case "create":
+					if (freedAt != null) {
+						handOffs.add(Duration.between(freedAt, event.getTime()).toMillis());
+						freedAt = null;
+					}
+					created.put(event.getContainer(), event.getTime());
+					live++;
+					break;
+				case "start":
+					Instant createdAt = created.get(event.getContainer());
+					if (createdAt != null) {
+						containerStarts.add(Duration.between(createdAt, event.getTime()).toMillis());
+					}
+					break;
+				case "destroy":
+					if (live >= slots) {
+						freedAt = event.getTime();
+					}
+					live = Math.max(live - 1, 0);
+					break;
+				default:
+					break;
+			}
+		}
+
+		JsonObject result = new JsonObject();
+		result.addProperty("slots", slots);
+		result.addProperty("runs", runCount);
+		result.addProperty("elapsedMillis", elapsed.toMillis());
+		result.add("queuedToFirstMethodMillis", summarise(toFirstMethods));
+		result.add("slotWaitMillis", summarise(slotWaits));
+		result.add("slotHandOffMillis", summarise(handOffs));
+		result.add("containerStartMillis", summarise(containerStarts));
+		return result;
+	}
+
+	private JsonObject summarise(ArrayList<Long> values) {
+		JsonObject summary = new JsonObject();
+		summary.addProperty("count", values.size());
+		if (values.isEmpty()) {
+			return summary;
+		}
+		Collections.sort(values);
+		long total = 0;
+		for (long value : values) {
+			total += value;
+		}
+		summary.addProperty("min", values.get(0));
+		summary.addProperty("median", values.get(values.size() / 2));
+		summary.addProperty("mean", total / values.size());
+		summary.addProperty("max", values.get(values.size() - 1));
+		return summary;
+	}
+
+}
@@ -18,13 +18,9 @@ import org.apache.commons.io.IOUtils;
 import dev.galasa.BeforeClass;
 import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.SetContentType;
-import dev.galasa.core.manager.StoredArtifactRoot;
 
 public abstract class AbstractDockerUbuntuLocal extends AbstractDocker {
 	
-	@StoredArtifactRoot
-	public Path storedArtifactRoot;
-	
 	@BeforeClass
 	public void setupEnvironment() throws Exception {
 		shell = getDockerLinuxImage().getCommandShell();
@@ -11,7 +11,7 @@ import dev.galasa.TestAreas;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
 import dev.galasa.galasaecosystem.ILocalEcosystem;
 import dev.galasa.galasaecosystem.LocalEcosystem;
-import dev.galasa.inttests.docker.AbstractDockerUbuntuLocal;
+import dev.galasa.inttests.docker.AbstractDockerIvtUbuntuLocal;
 import dev.galasa.java.JavaVersion;
 import dev.galasa.java.ubuntu.IJavaUbuntuInstallation;
 import dev.galasa.java.ubuntu.JavaUbuntuInstallation;
@@ -22,7 +22,7 @@ import dev.galasa.linux.OperatingSystem;
 @Test
 @TestAreas({"dockermanager", "localecosystem", "java11", "ubuntu"})
 @Tags({"codecoverage"})
-public class DockerLocalJava11Ubuntu extends AbstractDockerUbuntuLocal {
+public class DockerLocalJava11Ubuntu extends AbstractDockerIvtUbuntuLocal {
 	
 	@LocalEcosystem(linuxImageTag = "PRIMARY")
 	public ILocalEcosystem ecosystem;
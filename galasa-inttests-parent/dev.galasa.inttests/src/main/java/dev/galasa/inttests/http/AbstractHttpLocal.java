@@ -5,33 +5,16 @@
  */
 package dev.galasa.inttests.http;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.Test;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
-public abstract class AbstractHttpLocal {
+public abstract class AbstractHttpLocal extends AbstractEcosystemTest {
     
     @Test
     public void testHttpIvtTest() throws Exception {
         
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.http.manager.ivt", 
-                "dev.galasa.http.manager.ivt.HttpManagerIVT", 
-                null, 
-                null, 
-                null, 
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.http.manager.ivt", "dev.galasa.http.manager.ivt.HttpManagerIVT");
     }
 
     abstract protected IGenericEcosystem getEcosystem();
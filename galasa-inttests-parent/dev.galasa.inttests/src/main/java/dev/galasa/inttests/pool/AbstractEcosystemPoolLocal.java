@@ -0,0 +1,91 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import dev.galasa.Test;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
+import dev.galasa.inttests.TimedEcosystemRuns;
+import dev.galasa.inttests.suite.IvtBatch;
+
+/**
+ * Runs the IVT wrappers of one ecosystem configuration against a single
+ * provisioned local ecosystem.
+ *
+ * The concrete class is the pool key, its annotations pick the Java version,
+ * the isolation installation and the default z/OS image, so Java, the Galasa
+ * runtime and the felix-cache are set up once for every lessee of that
+ * configuration instead of once per wrapper class.
+ *
+ * Lessees that need the same CPS properties share a lease and their runs
+ * overlap, lessees with conflicting properties, such as the z/OSMF and RSE
+ * variants, get leases of their own one after another. The CPS is reset at the
+ * end of each lease.
+ *
+ * A pool supersedes the wrapper classes of its configuration for a full run,
+ * the wrappers still provision an ecosystem of their own and are kept only to
+ * run a single IVT in isolation, so a full run should select the ecosystempool
+ * test area rather than the wrappers.
+ */
+public abstract class AbstractEcosystemPoolLocal extends AbstractEcosystemTest {
+
+    @Test
+    public void testPooledLessees() throws Exception {
+
+        Instant start = Instant.now();
+
+        TimedEcosystemRuns runs = newTimedRuns();
+
+        // *** One lease for each distinct set of CPS properties, in lessee order
+        LinkedHashMap<Map<String, String>, List<Lessee>> leases = new LinkedHashMap<>();
+        for (Lessee lessee : getLessees()) {
+            leases.computeIfAbsent(lessee.getCpsProperties(), k -> new ArrayList<>()).add(lessee);
+        }
+
+        ArrayList<String> failures = new ArrayList<>();
+        StringBuilder report = new StringBuilder("Pooled ecosystem results :-");
+        for (Entry<Map<String, String>, List<Lessee>> lease : leases.entrySet()) {
+            Instant leaseStart = Instant.now();
+
+            try (EcosystemLease ecosystemLease = new EcosystemLease(getEcosystem(), logger)) {
+                ecosystemLease.setCpsProperties(lease.getKey());
+
+                IvtBatch batch = new IvtBatch(runs, logger);
+                for (Lessee lessee : lease.getValue()) {
+                    batch.submit(lessee.toString(), lessee.getIvt());
+                }
+                batch.waitForAll(report, failures);
+            }
+
+            report.append("\n  lease " + lease.getKey() + " took " + Duration.between(leaseStart, Instant.now()).getSeconds() + " seconds");
+        }
+        report.append("\n" + leases.size() + " leases on one ecosystem took " + Duration.between(start, Instant.now()).getSeconds() + " seconds");
+        logger.info(report.toString());
+
+        assertThat(failures).describedAs("The lessees that did not pass").isEmpty();
+    }
+
+    /**
+     * @return the lessees to run, by default all of them
+     */
+    protected EnumSet<Lessee> getLessees() {
+        return EnumSet.allOf(Lessee.class);
+    }
+
+    abstract protected IGenericEcosystem getEcosystem();
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.pool;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.galasaecosystem.GalasaEcosystemManagerException;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.CpsSnapshot;
+import dev.galasa.inttests.TestException;
+
+/**
+ * A lease of a pooled ecosystem to one set of CPS properties.
+ *
+ * A snapshot of the CPS namespaces the lease touches is taken before the
+ * properties are set, and closing the lease restores it, so the next lessee
+ * starts from the ecosystem as it was provisioned.
+ */
+public class EcosystemLease implements AutoCloseable {
+
+    private final IGenericEcosystem ecosystem;
+    private final Log               logger;
+
+    private CpsSnapshot             snapshot;
+
+    public EcosystemLease(IGenericEcosystem ecosystem, Log logger) {
+        this.ecosystem = ecosystem;
+        this.logger = logger;
+    }
+
+    public IGenericEcosystem getEcosystem() {
+        return this.ecosystem;
+    }
+
+    /**
+     * Set CPS properties for the length of the lease, the lease can only be
+     * given its properties once
+     */
+    public void setCpsProperties(Map<String, String> properties) throws GalasaEcosystemManagerException, TestException {
+        if (snapshot != null) {
+            throw new TestException("The lease already has its CPS properties");
+        }
+        if (properties.isEmpty()) {
+            return;
+        }
+
+        LinkedHashSet<String> namespaces = new LinkedHashSet<>();
+        for (String property : properties.keySet()) {
+            namespaces.add(property.substring(0, property.indexOf('.')));
+        }
+        snapshot = CpsSnapshot.take(ecosystem, logger, namespaces.toArray(new String[0]));
+
+        for (Entry<String, String> property : properties.entrySet()) {
+            snapshot.setCpsProperty(property.getKey(), property.getValue());
+        }
+    }
+
+    /**
+     * Put back the CPS namespaces the lease changed
+     */
+    @Override
+    public void close() throws GalasaEcosystemManagerException, TestException {
+        if (snapshot != null) {
+            snapshot.restore();
+        }
+    }
+
+}
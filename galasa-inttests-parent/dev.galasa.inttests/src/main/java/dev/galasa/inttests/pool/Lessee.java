@@ -0,0 +1,58 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.pool;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dev.galasa.inttests.suite.Ivt;
+
+/**
+ * The IVT wrapper classes that can lease a pooled local ecosystem rather than
+ * provisioning their own, with the CPS properties each one sets before its run.
+ */
+public enum Lessee {
+
+    CORE(Ivt.CORE),
+    ARTIFACT(Ivt.ARTIFACT),
+    HTTP(Ivt.HTTP),
+    ZOS(Ivt.ZOS),
+    ZOS_TSO(Ivt.ZOS_TSO),
+    ZOS_BATCH_ZOSMF(Ivt.ZOS_BATCH, "zos.bundle.extra.batch.manager", "dev.galasa.zosbatch.zosmf.manager"),
+    ZOS_BATCH_RSE(Ivt.ZOS_BATCH, "zos.bundle.extra.batch.manager", "dev.galasa.zosbatch.rseapi.manager"),
+    ZOS_FILE_ZOSMF(Ivt.ZOS_FILE, "zos.bundle.extra.file.manager", "dev.galasa.zosfile.zosmf.manager"),
+    ZOS_FILE_RSE(Ivt.ZOS_FILE, "zos.bundle.extra.file.manager", "dev.galasa.zosfile.rseapi.manager"),
+    ZOS_FILE_DATASET_ZOSMF(Ivt.ZOS_FILE_DATASET, "zos.bundle.extra.file.manager", "dev.galasa.zosfile.zosmf.manager"),
+    ZOS_FILE_DATASET_RSE(Ivt.ZOS_FILE_DATASET, "zos.bundle.extra.file.manager", "dev.galasa.zosfile.rseapi.manager"),
+    ZOS_VSAM_ZOSMF(Ivt.ZOS_VSAM, "zos.bundle.extra.file.manager", "dev.galasa.zosfile.zosmf.manager"),
+    ZOS_VSAM_RSE(Ivt.ZOS_VSAM, "zos.bundle.extra.file.manager", "dev.galasa.zosfile.rseapi.manager");
+
+    private final Ivt                 ivt;
+    private final Map<String, String> cpsProperties;
+
+    private Lessee(Ivt ivt, String... cpsProperties) {
+        this.ivt = ivt;
+
+        LinkedHashMap<String, String> properties = new LinkedHashMap<>();
+        for (int i = 0; i < cpsProperties.length; i += 2) {
+            properties.put(cpsProperties[i], cpsProperties[i + 1]);
+        }
+        this.cpsProperties = Collections.unmodifiableMap(properties);
+    }
+
+    public Ivt getIvt() {
+        return this.ivt;
+    }
+
+    /**
+     * @return the CPS properties the lessee needs, in the order they are set
+     */
+    public Map<String, String> getCpsProperties() {
+        return this.cpsProperties;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.pool.local.mvp;
+
+import java.util.EnumSet;
+
+import dev.galasa.Test;
+import dev.galasa.TestAreas;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.galasaecosystem.ILocalEcosystem;
+import dev.galasa.galasaecosystem.IsolationInstallation;
+import dev.galasa.galasaecosystem.LocalEcosystem;
+import dev.galasa.inttests.pool.AbstractEcosystemPoolLocal;
+import dev.galasa.inttests.pool.Lessee;
+import dev.galasa.java.JavaVersion;
+import dev.galasa.java.ubuntu.IJavaUbuntuInstallation;
+import dev.galasa.java.ubuntu.JavaUbuntuInstallation;
+import dev.galasa.linux.ILinuxImage;
+import dev.galasa.linux.LinuxImage;
+import dev.galasa.linux.OperatingSystem;
+import dev.galasa.zos.IZosImage;
+import dev.galasa.zos.ZosImage;
+
+@Test
+@TestAreas({"ecosystempool","localecosystem","java11","ubuntu","mvp"})
+public class EcosystemPoolLocalJava11UbuntuMvp extends AbstractEcosystemPoolLocal {
+
+    @LocalEcosystem(linuxImageTag = "PRIMARY", isolationInstallation = IsolationInstallation.Mvp, addDefaultZosImage = "PRIMARY")
+    public ILocalEcosystem ecosystem;
+    
+    @LinuxImage(operatingSystem = OperatingSystem.ubuntu, capabilities = "isolated")
+    public ILinuxImage linuxImage;
+    
+    @JavaUbuntuInstallation(javaVersion = JavaVersion.v11)
+    public IJavaUbuntuInstallation java;
+
+    @ZosImage
+    public IZosImage zosImage;
+
+    @Override
+    protected IGenericEcosystem getEcosystem() {
+        return this.ecosystem;
+    }
+
+    /**
+     * There is no MVP HTTP wrapper, so the pool leaves the HTTP IVT out too
+     */
+    @Override
+    protected EnumSet<Lessee> getLessees() {
+        return EnumSet.complementOf(EnumSet.of(Lessee.HTTP));
+    }
+
+}
@@ -7,86 +7,149 @@ package dev.galasa.inttests.simbank;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-import org.apache.commons.logging.Log;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
 
 import com.google.gson.JsonObject;
 
+import dev.galasa.BeforeClass;
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
 import dev.galasa.Test;
-import dev.galasa.core.manager.Logger;
+import dev.galasa.core.manager.TestProperty;
 import dev.galasa.galasaecosystem.GalasaEcosystemManagerException;
 import dev.galasa.galasaecosystem.ILocalEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 import dev.galasa.inttests.TestException;
+import dev.galasa.inttests.TimedEcosystemRuns;
+import dev.galasa.inttests.simbank.FelixCacheMonitor.FelixCacheState;
 import dev.galasa.ipnetwork.IpNetworkManagerException;
 
-public abstract class AbstractSimBankLocal {
+public abstract class AbstractSimBankLocal extends AbstractEcosystemTest {
     
-    @Logger
-    public Log logger;
-
-   @Test
-    public void testSimbankIvt() throws GalasaEcosystemManagerException, InterruptedException, TestException, IpNetworkManagerException {
+    // "warm" runs each of the SimBank tests once before the tests proper, so the
+    // felix-cache already holds every bundle they use and each test run starts
+    // from the same populated cache
+    @TestProperty(prefix = "simbank.felix.cache",suffix = "mode", required = false)
+    public String felixCacheMode;
+    
+    private static final String[] SIMBANK_TESTS = {
+            "dev.galasa.simbank.tests.SimBankIVT",
+            "dev.galasa.simbank.tests.BasicAccountCreditTest",
+            "dev.galasa.simbank.tests.ProvisionedAccountCreditTests" };
+    
+    private FelixCacheMonitor felixCache;
+    private String            warmDigest;
+    
+    @BeforeClass
+    public void warmFelixCache() throws GalasaEcosystemManagerException, InterruptedException, TestException, IpNetworkManagerException {
+        felixCache = new FelixCacheMonitor(getEcosystem().getCommandShell());
+        FelixCacheState state = felixCache.inspect();
+        logger.info("Felix cache before the SimBank tests, " + state);
+        
+        if (!"warm".equalsIgnoreCase(felixCacheMode)) {
+            return;
+        }
+        
+        // *** One after another, the runs share the one felix-cache
+        ArrayList<String> runNames = new ArrayList<>();
+        for (String testName : SIMBANK_TESTS) {
+            String runName = getEcosystem().submitRun(null, 
+                    null, 
+                    null, 
+                    "dev.galasa.simbank.tests", 
+                    testName, 
+                    null, 
+                    null, 
+                    "simbank", 
+                    null);
+            JsonObject run = getEcosystem().waitForRun(runName);
+            
+            // *** A warm-up that failed may not have installed all its bundles, so the cache would not be warm
+            String result = run.has("result") ? run.get("result").getAsString() : "unknown";
+            assertThat(result).describedAs("The warm-up run " + runName + " passes").isEqualTo("Passed");
+            runNames.add(runName);
+        }
+        
+        state = felixCache.inspect();
+        warmDigest = state.getDigest();
+        logger.info("Felix cache warmed by runs " + runNames + ", " + state);
+    }
 
-       String runName = getEcosystem().submitRun(null, 
-               null, 
-               null, 
-               "dev.galasa.simbank.tests", 
-               "dev.galasa.simbank.tests.SimBankIVT", 
-               null, 
-               null, 
-               "simbank", 
-               null);
-       
-       JsonObject run = getEcosystem().waitForRun(runName);
-       
-       String result = run.get("result").getAsString();
-       
-       assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
-       
-       logger.info("cache diags\n" + getEcosystem().getCommandShell().issueCommand("ls -l .galasa/felix-cache/"));
+    @Test
+    public void testSimbankIvt() throws Exception {
+        runSimBankTest(SIMBANK_TESTS[0]);
     }
     
     @Test
-    public void testBasicAccountCreditTest() throws GalasaEcosystemManagerException, InterruptedException, TestException, IpNetworkManagerException {
-        logger.info("cache diags\n" + getEcosystem().getCommandShell().issueCommand("ls -l .galasa/felix-cache/"));
+    public void testBasicAccountCreditTest() throws Exception {
+        runSimBankTest(SIMBANK_TESTS[1]);
+    }
+    
+    @Test
+    public void testProvisionedAccountCreditTests() throws Exception {
+        runSimBankTest(SIMBANK_TESTS[2]);
+    }
+    
+    private void runSimBankTest(String testName) throws Exception {
+        FelixCacheState before = felixCache.inspect();
+        if (warmDigest != null) {
+            // *** Otherwise the startup time recorded for this run would not be a warm start
+            assertThat(before.getDigest()).describedAs("The felix cache still holds the bundles of the warm-up runs, " + before)
+                    .isEqualTo(warmDigest);
+        }
 
-        String runName = getEcosystem().submitRun(null, 
+        TimedEcosystemRuns runs = newTimedRuns();
+        
+        String runName = runs.submitRun(null, 
                 null, 
                 null, 
                 "dev.galasa.simbank.tests", 
-                "dev.galasa.simbank.tests.BasicAccountCreditTest", 
+                testName, 
                 null, 
                 null, 
                 "simbank", 
                 null);
         
-        JsonObject run = getEcosystem().waitForRun(runName);
+        JsonObject run = runs.waitForRun(runName);
+        
+        recordFelixCache(runName, testName, runs.getPhases(runName).get("startup"), felixCache.inspect());
         
         String result = run.get("result").getAsString();
         
         assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
-        logger.info("cache diags\n" + getEcosystem().getCommandShell().issueCommand("ls -l .galasa/felix-cache/"));
     }
     
-    @Test
-    public void testProvisionedAccountCreditTests() throws GalasaEcosystemManagerException, InterruptedException, TestException, IpNetworkManagerException {
-        logger.info("cache diags\n" + getEcosystem().getCommandShell().issueCommand("ls -l .galasa/felix-cache/"));
-
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.simbank.tests", 
-                "dev.galasa.simbank.tests.ProvisionedAccountCreditTests", 
-                null, 
-                null, 
-                "simbank", 
-                null);
+    /*
+     * A run that had to write bundle jars into the cache paid for OSGi resolution,
+     * so its startup time is a cold start, otherwise a warm one
+     */
+    private void recordFelixCache(String runName, String testName, Duration startup, FelixCacheState after) {
+        String start = after.getJarsWritten() == 0 ? "warm" : "cold";
         
-        JsonObject run = getEcosystem().waitForRun(runName);
+        JsonObject cache = new JsonObject();
+        cache.addProperty("runName", runName);
+        cache.addProperty("testName", testName);
+        cache.addProperty("start", start);
+        if (startup != null) {
+            cache.addProperty("startupMillis", startup.toMillis());
+        }
+        cache.addProperty("bundles", after.getBundles());
+        cache.addProperty("jarsWritten", after.getJarsWritten());
+        logger.info("Run " + runName + " had a " + start + " framework start, " + after);
         
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
-        logger.info("cache diags\n" + getEcosystem().getCommandShell().issueCommand("ls -l .galasa/felix-cache/"));
+        try {
+            Path cacheFile = storedArtifactRoot.resolve("felix-cache").resolve(runName + ".json");
+            Files.write(cacheFile, cache.toString().getBytes(StandardCharsets.UTF_8),
+                    new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
+        } catch (IOException e) {
+            logger.warn("Unable to store the felix cache metrics of run " + runName, e);
+        }
     }
     
     abstract protected ILocalEcosystem getEcosystem();
@@ -0,0 +1,180 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.simbank;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import com.google.gson.JsonObject;
+
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
+import dev.galasa.Test;
+import dev.galasa.core.manager.TestProperty;
+import dev.galasa.galasaecosystem.ILocalEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
+import dev.galasa.inttests.TimedEcosystemRuns;
+
+/**
+ * Drives a batch of concurrent SimBank credit test runs through one ecosystem
+ * and SimBank instance to give a repeatable capacity figure.
+ *
+ * BasicAccountCreditTest and ProvisionedAccountCreditTests runs are submitted
+ * alternately, all before any is waited on. The latency of a run is from it
+ * being queued to it ending, as recorded by the ecosystem, and the throughput
+ * is the runs that passed over the time from the first submission to the last
+ * run ending.
+ *
+ * The result is stored as throughput/result.json. When a history directory
+ * is configured the result is also appended to the history file there, which
+ * is copied into the stored artifacts each time, so every run carries the
+ * trend up to that point.
+ */
+public abstract class AbstractSimBankThroughputLocal extends AbstractEcosystemTest {
+
+    private static final int      DEFAULT_RUNS = 10;
+
+    private static final String[] TESTS = {
+            "dev.galasa.simbank.tests.BasicAccountCreditTest",
+            "dev.galasa.simbank.tests.ProvisionedAccountCreditTests" };
+
+    // The number of runs to submit at once
+    @TestProperty(prefix = "simbank.throughput",suffix = "runs", required = false)
+    public String throughputRuns;
+
+    // Where the history of results is kept, a directory that outlives the test JVM,
+    // no history is kept without it
+    @TestProperty(prefix = "simbank.throughput.history",suffix = "directory", required = false)
+    public String historyDirectory;
+
+    @Test
+    public void testSimBankThroughput() throws Exception {
+        int runCount = DEFAULT_RUNS;
+        if (throughputRuns != null && !throughputRuns.trim().isEmpty()) {
+            runCount = Integer.parseInt(throughputRuns.trim());
+        }
+
+        Instant start = Instant.now();
+
+        LinkedHashMap<String, String> runNames = new LinkedHashMap<>();
+        for (int i = 0; i < runCount; i++) {
+            String testName = TESTS[i % TESTS.length];
+            String runName = getEcosystem().submitRun(null,
+                    null,
+                    null,
+                    "dev.galasa.simbank.tests",
+                    testName,
+                    null,
+                    null,
+                    "simbank",
+                    null);
+            runNames.put(runName, testName);
+        }
+        logger.info("Submitted " + runCount + " SimBank runs in " + Duration.between(start, Instant.now()).toMillis() + "ms");
+
+        // *** Elapsed and latencies come from the ecosystem's own times, the JVM clock is only used when a run record has none
+        ArrayList<Long> latencies = new ArrayList<>();
+        int failed = 0;
+        Instant firstQueued = null;
+        Instant lastEnd = null;
+        Instant lastReturned = start;
+        boolean allTimed = true;
+        for (Entry<String, String> entry : runNames.entrySet()) {
+            JsonObject run = getEcosystem().waitForRun(entry.getKey());
+            lastReturned = Instant.now();
+
+            String result = run.has("result") ? run.get("result").getAsString() : "unknown";
+            if (!"Passed".equals(result)) {
+                failed++;
+                logger.warn("Run " + entry.getKey() + " of " + entry.getValue() + " ended " + result);
+            }
+
+            Instant queued = TimedEcosystemRuns.getInstant(run, "queued");
+            Instant end = TimedEcosystemRuns.getInstant(run, "endTime");
+            if (queued == null || end == null) {
+                logger.warn("Run " + entry.getKey() + " has no queued or end time, it is left out of the latencies");
+                allTimed = false;
+                continue;
+            }
+            if (firstQueued == null || queued.isBefore(firstQueued)) {
+                firstQueued = queued;
+            }
+            if (lastEnd == null || end.isAfter(lastEnd)) {
+                lastEnd = end;
+            }
+            latencies.add(Duration.between(queued, end).toMillis());
+        }
+
+        Collections.sort(latencies);
+        Duration elapsed = allTimed && firstQueued != null ? Duration.between(firstQueued, lastEnd) : Duration.between(start, lastReturned);
+        int passed = runCount - failed;
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("timestamp", start.toString());
+        summary.addProperty("runs", runCount);
+        summary.addProperty("passed", passed);
+        summary.addProperty("failureRate", runCount == 0 ? 0.0 : (double) failed / runCount);
+        summary.addProperty("elapsedMillis", elapsed.toMillis());
+        summary.addProperty("runsPerMinute", elapsed.isZero() ? 0.0 : passed * 60000.0 / elapsed.toMillis());
+        summary.addProperty("p50Millis", percentile(latencies, 50));
+        summary.addProperty("p95Millis", percentile(latencies, 95));
+        summary.addProperty("p99Millis", percentile(latencies, 99));
+        logger.info("SimBank throughput :-\n" + summary);
+
+        storeResult(summary);
+
+        assertThat(failed).describedAs("The SimBank runs that did not pass").isZero();
+    }
+
+    /*
+     * Nearest rank, so a small batch reports a latency that a run actually had
+     */
+    private long percentile(ArrayList<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+
+    private void storeResult(JsonObject summary) {
+        try {
+            Path throughputDirectory = storedArtifactRoot.resolve("throughput");
+            Files.write(throughputDirectory.resolve("result.json"), summary.toString().getBytes(StandardCharsets.UTF_8),
+                    new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
+
+            if (historyDirectory == null || historyDirectory.trim().isEmpty()) {
+                logger.info("No simbank.throughput.history.directory is configured, the result is not added to a history");
+                return;
+            }
+            Path history = Paths.get(historyDirectory.trim());
+            Files.createDirectories(history);
+            Path historyFile = history.resolve("history.jsonl");
+            Files.write(historyFile, (summary.toString() + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            Files.write(throughputDirectory.resolve("history.jsonl"), Files.readAllBytes(historyFile),
+                    new SetContentType(ResultArchiveStoreContentType.TEXT), StandardOpenOption.CREATE);
+        } catch (IOException e) {
+            logger.warn("Unable to store the SimBank throughput result", e);
+        }
+    }
+
+    abstract protected ILocalEcosystem getEcosystem();
+
+}
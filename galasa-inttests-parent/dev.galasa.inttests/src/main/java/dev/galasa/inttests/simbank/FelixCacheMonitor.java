@@ -0,0 +1,102 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.simbank;
+
+import dev.galasa.ipnetwork.ICommandShell;
+import dev.galasa.ipnetwork.IpNetworkManagerException;
+
+/**
+ * Follows the felix bundle cache of a local ecosystem between runs.
+ *
+ * Each inspection counts the installed bundles, takes a digest of the
+ * location and revision files of every bundle and counts the bundle jars
+ * written since the previous inspection, all in one command. A run that wrote no bundle jars started
+ * from a warm cache, one that did had to resolve and install bundles again.
+ */
+public class FelixCacheMonitor {
+
+    private static final String CACHE_DIRECTORY = ".galasa/felix-cache";
+    private static final String MARKER_FILE     = ".galasa/felix-cache.inttests-marker";
+
+    private final ICommandShell shell;
+
+    public FelixCacheMonitor(ICommandShell shell) {
+        this.shell = shell;
+    }
+
+    /**
+     * Inspect the cache and start a new inspection interval
+     *
+     * @return the state of the cache, with the jars written since the last inspection
+     * @throws IpNetworkManagerException if the command could not be issued
+     */
+    public FelixCacheState inspect() throws IpNetworkManagerException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("C=" + CACHE_DIRECTORY + ";M=" + MARKER_FILE + ";");
+        sb.append("if [ -d $C ]; then ");
+        sb.append("echo bundles=$(find $C -mindepth 1 -maxdepth 1 -type d -name 'bundle*' | wc -l);");
+        // *** Paths and contents, so a bundle installed, removed or updated to a new revision changes the digest
+        sb.append("echo digest=$(cd $C && find . -mindepth 2 -maxdepth 3 -type f \\( -name bundle.info -o -name bundle.location -o -name revision.location \\) -print0"
+                + " | sort -z | xargs -0 -r md5sum | md5sum | cut -d' ' -f1);");
+        sb.append("if [ -f $M ]; then echo written=$(find $C -name '*.jar' -newer $M | wc -l); fi;");
+        sb.append("else echo bundles=0; fi;");
+        sb.append("touch $M");
+
+        String response = shell.issueCommand(sb.toString());
+
+        int bundles = 0;
+        int written = -1;
+        String digest = "";
+        for (String line : response.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.startsWith("bundles=")) {
+                bundles = Integer.parseInt(line.substring("bundles=".length()));
+            } else if (line.startsWith("written=")) {
+                written = Integer.parseInt(line.substring("written=".length()));
+            } else if (line.startsWith("digest=")) {
+                digest = line.substring("digest=".length());
+            }
+        }
+
+        return new FelixCacheState(bundles, written, digest);
+    }
+
+    public static class FelixCacheState {
+        private final int    bundles;
+        private final int    jarsWritten;
+        private final String digest;
+
+        private FelixCacheState(int bundles, int jarsWritten, String digest) {
+            this.bundles = bundles;
+            this.jarsWritten = jarsWritten;
+            this.digest = digest;
+        }
+
+        public int getBundles() {
+            return bundles;
+        }
+
+        /**
+         * @return the bundle jars written since the previous inspection, -1 on the first
+         */
+        public int getJarsWritten() {
+            return jarsWritten;
+        }
+
+        /**
+         * @return a digest of the bundle location and revision files, which changes if any bundle is installed, removed or updated
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        @Override
+        public String toString() {
+            return bundles + " bundles, " + jarsWritten + " jars written, digest " + digest;
+        }
+    }
+
+}
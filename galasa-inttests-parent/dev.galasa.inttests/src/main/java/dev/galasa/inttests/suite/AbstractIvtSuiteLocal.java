@@ -0,0 +1,87 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.suite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+import dev.galasa.BeforeClass;
+import dev.galasa.Test;
+import dev.galasa.core.manager.CoreManager;
+import dev.galasa.core.manager.ICoreManager;
+import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
+import dev.galasa.inttests.TimedEcosystemRuns;
+
+/**
+ * Runs a set of manager IVTs against a single ecosystem.
+ *
+ * Every IVT is submitted before any is waited on, so the runs execute
+ * alongside each other and the suite takes roughly as long as the slowest IVT
+ * rather than the sum of them all. Each IVT still gets its own result in the
+ * log, and the test fails listing every IVT that did not pass.
+ *
+ * The batch and file IVTs are run once, against the z/OSMF implementations.
+ * Their RSE API variants are not run by the suite, they are covered by their
+ * own wrapper classes and by the ecosystem pool, which gives them a lease of
+ * their own.
+ */
+public abstract class AbstractIvtSuiteLocal extends AbstractEcosystemTest {
+
+    @CoreManager
+    public ICoreManager coreManager;
+
+    /*
+     * The z/OS IVTs share the ecosystem, so the file and batch implementations
+     * are chosen once for the whole suite rather than per IVT.
+     */
+    @BeforeClass
+    public void setProps() throws Exception {
+        if (getIvts().stream().anyMatch(Ivt::isZosRequired)) {
+            getEcosystem().setCpsProperty("zos.bundle.extra.batch.manager", "dev.galasa.zosbatch.zosmf.manager");
+            getEcosystem().setCpsProperty("zos.bundle.extra.file.manager", "dev.galasa.zosfile.zosmf.manager");
+        }
+        if (getIvts().contains(Ivt.ZOS_3270)) {
+            getEcosystem().setCpsProperty("test.IVT.RUN.NAME", coreManager.getRunName());
+        }
+    }
+
+    @Test
+    public void testIvtSuite() throws Exception {
+
+        Instant start = Instant.now();
+
+        TimedEcosystemRuns runs = newTimedRuns();
+
+        // *** Submit everything first so the runs overlap
+        IvtBatch batch = new IvtBatch(runs, logger);
+        for (Ivt ivt : getIvts()) {
+            batch.submit(ivt.getTestName(), ivt);
+        }
+
+        ArrayList<String> failures = new ArrayList<>();
+        StringBuilder report = new StringBuilder("IVT suite results :-");
+        batch.waitForAll(report, failures);
+        report.append("\nSuite took " + Duration.between(start, Instant.now()).getSeconds() + " seconds");
+        logger.info(report.toString());
+
+        assertThat(failures).describedAs("The IVTs that did not pass").isEmpty();
+    }
+
+    /**
+     * @return the IVTs to run, by default all of them
+     */
+    protected EnumSet<Ivt> getIvts() {
+        return EnumSet.allOf(Ivt.class);
+    }
+
+    abstract protected IGenericEcosystem getEcosystem();
+
+}
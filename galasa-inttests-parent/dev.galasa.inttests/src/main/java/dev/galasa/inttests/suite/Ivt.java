@@ -0,0 +1,50 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.suite;
+
+/**
+ * The manager IVTs that the local ecosystem wrapper tests run, so a suite can
+ * submit them all against the one ecosystem.
+ */
+public enum Ivt {
+
+    CORE("dev.galasa.core.manager.ivt", "dev.galasa.core.manager.ivt.CoreManagerIVT", false),
+    ARTIFACT("dev.galasa.artifact.manager.ivt", "dev.galasa.artifact.manager.ivt.ArtifactManagerIVT", false),
+    HTTP("dev.galasa.http.manager.ivt", "dev.galasa.http.manager.ivt.HttpManagerIVT", false),
+    ZOS("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerIVT", true),
+    ZOS_TSO("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerTSOCommandIVT", true),
+    ZOS_BATCH("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerBatchIVT", true),
+    ZOS_FILE("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerFileIVT", true),
+    ZOS_FILE_DATASET("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerFileDatasetIVT", true),
+    ZOS_VSAM("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerFileVSAMIVT", true),
+    ZOS_3270("dev.galasa.zos3270.manager.ivt", "dev.galasa.zos3270.manager.ivt.Zos3270IVT", true);
+
+    private final String  bundleName;
+    private final String  testName;
+    private final boolean zosRequired;
+
+    private Ivt(String bundleName, String testName, boolean zosRequired) {
+        this.bundleName = bundleName;
+        this.testName = testName;
+        this.zosRequired = zosRequired;
+    }
+
+    public String getBundleName() {
+        return this.bundleName;
+    }
+
+    public String getTestName() {
+        return this.testName;
+    }
+
+    /**
+     * @return true if the IVT needs the ecosystem to have a default z/OS image
+     */
+    public boolean isZosRequired() {
+        return this.zosRequired;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.inttests.suite;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+
+import com.google.gson.JsonObject;
+
+import dev.galasa.galasaecosystem.GalasaEcosystemManagerException;
+import dev.galasa.inttests.TimedEcosystemRuns;
+
+/**
+ * A batch of IVT runs against one ecosystem, all submitted before any is
+ * waited on so the runs overlap.
+ *
+ * Each run is reported under a label of the caller's choosing, with its run
+ * name and result, and every run that did not pass is added to the failures.
+ */
+public class IvtBatch {
+
+    private final TimedEcosystemRuns            runs;
+    private final Log                           logger;
+
+    private final LinkedHashMap<String, String> runNames = new LinkedHashMap<>();
+
+    public IvtBatch(TimedEcosystemRuns runs, Log logger) {
+        this.runs = runs;
+        this.logger = logger;
+    }
+
+    /**
+     * Submit an IVT
+     *
+     * @param label how the run is described in the log and the report
+     * @param ivt   the IVT to submit
+     */
+    public void submit(String label, Ivt ivt) throws GalasaEcosystemManagerException {
+        String runName = runs.submitRun(null,
+                null,
+                null,
+                ivt.getBundleName(),
+                ivt.getTestName(),
+                null,
+                null,
+                null,
+                null);
+        logger.info("Submitted " + label + " as run " + runName);
+        runNames.put(label, runName);
+    }
+
+    /**
+     * Wait for every run submitted, in the order they were submitted. The runs
+     * are all in flight, so waiting on them in turn only costs the longest
+     *
+     * @param report   where a line is added for each run
+     * @param failures where each run that did not pass is added
+     */
+    public void waitForAll(StringBuilder report, List<String> failures) throws GalasaEcosystemManagerException, InterruptedException {
+        for (Entry<String, String> entry : runNames.entrySet()) {
+            JsonObject run = runs.waitForRun(entry.getValue());
+
+            String result = run.has("result") ? run.get("result").getAsString() : "unknown";
+            report.append("\n    " + entry.getKey() + " (" + entry.getValue() + ") - " + result);
+            if (!"Passed".equals(result)) {
+                failures.add(entry.getKey() + " (" + entry.getValue() + ") " + result);
+            }
+        }
+        runNames.clear();
+    }
+
+}
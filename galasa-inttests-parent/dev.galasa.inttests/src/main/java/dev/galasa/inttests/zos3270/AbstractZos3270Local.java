@@ -5,19 +5,16 @@
  */
 package dev.galasa.inttests.zos3270;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.BeforeClass;
 import dev.galasa.Test;
 import dev.galasa.core.manager.CoreManager;
 import dev.galasa.core.manager.ICoreManager;
 import dev.galasa.galasaecosystem.GalasaEcosystemManagerException;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
-public abstract class AbstractZos3270Local {
-	
+public abstract class AbstractZos3270Local extends AbstractEcosystemTest {
+    
 	@CoreManager
 	public ICoreManager coreManager;
 			
@@ -31,21 +28,7 @@ public abstract class AbstractZos3270Local {
     @Test
     public void testZos3270IvtTest() throws Exception {
         
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.zos3270.manager.ivt", 
-                "dev.galasa.zos3270.manager.ivt.Zos3270IVT", 
-                null, 
-                null, 
-                null, 
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.zos3270.manager.ivt", "dev.galasa.zos3270.manager.ivt.Zos3270IVT");
     }
 
     abstract protected IGenericEcosystem getEcosystem();
@@ -5,14 +5,11 @@
  */
 package dev.galasa.inttests.zosBatch;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.Test;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
-public abstract class AbstractZosBatchLocalZosmf {
+public abstract class AbstractZosBatchLocalZosmf extends AbstractEcosystemTest {
     
     @Test
     public void testZosBatchTestZOSMF() throws Exception {
@@ -20,21 +17,7 @@ public abstract class AbstractZosBatchLocalZosmf {
     	//default to z/OSMF batch
     	getEcosystem().setCpsProperty("zos.bundle.extra.batch.manager", "dev.galasa.zosbatch.zosmf.manager");
         
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.zos.manager.ivt", 
-                "dev.galasa.zos.manager.ivt.ZosManagerBatchIVT", 
-                null, 
-                null, 
-                null, 
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerBatchIVT");
     }
     
     abstract protected IGenericEcosystem getEcosystem();
@@ -5,35 +5,17 @@
  */
 package dev.galasa.inttests.zosFile;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.Test;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
-public abstract class AbstractZosFileLocalRSE {
-	
+public abstract class AbstractZosFileLocalRSE extends AbstractEcosystemTest {
     
     @Test
     public void testZosFileIvtTestRSE() throws Exception {
     	getEcosystem().setCpsProperty("zos.bundle.extra.file.manager", "dev.galasa.zosfile.rseapi.manager");
         
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.zos.manager.ivt", 
-                "dev.galasa.zos.manager.ivt.ZosManagerFileIVT", 
-                null, 
-                null, 
-                null, 
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerFileIVT");
     }
 
     abstract protected IGenericEcosystem getEcosystem();
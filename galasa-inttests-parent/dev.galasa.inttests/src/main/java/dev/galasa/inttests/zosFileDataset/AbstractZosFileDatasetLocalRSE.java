@@ -5,36 +5,19 @@
  */
 package dev.galasa.inttests.zosFileDataset;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
-import com.google.gson.JsonObject;
-
 import dev.galasa.Test;
 import dev.galasa.galasaecosystem.IGenericEcosystem;
 import dev.galasa.githubissue.GitHubIssue;
+import dev.galasa.inttests.AbstractEcosystemTest;
 
 @GitHubIssue( issue = "1961" )
-public abstract class AbstractZosFileDatasetLocalRSE {
+public abstract class AbstractZosFileDatasetLocalRSE extends AbstractEcosystemTest {
     
     @Test
     public void testZosFileIvtTestRSE() throws Exception {
     	getEcosystem().setCpsProperty("zos.bundle.extra.file.manager", "dev.galasa.zosfile.rseapi.manager");
         
-        String runName = getEcosystem().submitRun(null, 
-                null, 
-                null, 
-                "dev.galasa.zos.manager.ivt", 
-                "dev.galasa.zos.manager.ivt.ZosManagerFileDatasetIVT", 
-                null, 
-                null, 
-                null, 
-                null);
-        
-        JsonObject run = getEcosystem().waitForRun(runName);
-        
-        String result = run.get("result").getAsString();
-        
-        assertThat(result).describedAs("The test indicates the test passes").isEqualTo("Passed");
+        runIvt("dev.galasa.zos.manager.ivt", "dev.galasa.zos.manager.ivt.ZosManagerFileDatasetIVT");
     }
 
     abstract protected IGenericEcosystem getEcosystem();